@@ -0,0 +1,98 @@
+package com.liverpool.imageValidator.benchmark;
+
+import com.liverpool.imageValidator.entity.Inventory;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Datos sintéticos con semilla fija para que las corridas sean comparables entre commits
+final class BenchmarkData {
+
+    private static final long SEED = 20240601L;
+
+    private BenchmarkData() {
+    }
+
+    // SKUs numéricos de 9 a 12 dígitos, con ~5% de repetidos
+    static List<String> skus(int size) {
+        Random random = new Random(SEED);
+        List<String> skus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && random.nextInt(20) == 0) {
+                skus.add(skus.get(random.nextInt(i)));
+            } else {
+                skus.add(String.valueOf(100_000_000L + (long) (random.nextDouble() * 899_999_999_999L)));
+            }
+        }
+        return skus;
+    }
+
+    // Filas de ATG: ~60% BT, ~38% SL, ~2% otro tipo; algunos SKUs vienen como BT y SL
+    static List<SkusToDeleteDTO> atgRows(int size) {
+        Random random = new Random(SEED + 1);
+        List<String> skus = skus(size);
+        List<SkusToDeleteDTO> rows = new ArrayList<>(size + size / 50);
+        for (String sku : skus) {
+            int roll = random.nextInt(100);
+            int type = roll < 60 ? 0 : roll < 98 ? 1 : 2;
+            rows.add(new SkusToDeleteDTO(sku, type));
+            if (roll == 0) {
+                rows.add(new SkusToDeleteDTO(sku, 1));
+            }
+        }
+        return rows;
+    }
+
+    // Documentos con los tres casos de la actualización de Mongo y tiendas físicas
+    static List<Inventory> inventories(int size) {
+        Random random = new Random(SEED + 2);
+        List<String> skus = skus(size);
+        List<Inventory> docs = new ArrayList<>(size);
+        for (String sku : skus) {
+            Inventory doc = new Inventory();
+            doc.set_id(sku);
+            List<Object> entries = new ArrayList<>();
+            int stores = random.nextInt(4);
+            for (int s = 0; s < stores; s++) {
+                entries.add(entry("store" + (100 + s), random.nextInt(50), false));
+            }
+            if (random.nextInt(3) != 0) {
+                entries.add(entry("online", random.nextInt(50), true));
+            }
+            doc.setInventory(entries);
+            docs.add(doc);
+        }
+        return docs;
+    }
+
+    private static Map<String, Object> entry(String storeId, int stock, boolean extraFields) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("storeId", storeId);
+        entry.put("stock", stock);
+        if (extraFields) {
+            entry.put("reserved", 1);
+            entry.put("lastUpdate", "2024-06-01T00:00:00Z");
+        }
+        return entry;
+    }
+
+    // Copia profunda: las transformaciones modifican los documentos
+    static List<Inventory> copy(List<Inventory> docs) {
+        List<Inventory> copies = new ArrayList<>(docs.size());
+        for (Inventory doc : docs) {
+            Inventory copy = new Inventory();
+            copy.set_id(doc.get_id());
+            List<Object> entries = new ArrayList<>(doc.getInventory().size());
+            for (Object entry : doc.getInventory()) {
+                entries.add(new HashMap<>((Map<?, ?>) entry));
+            }
+            copy.setInventory(entries);
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,69 @@
+package com.liverpool.imageValidator.benchmark;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.repository.SqlShapeRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Construcción de los IN (...) al recorrer toda la lista en bloques de batchSize:
+// la forma previa (placeholders exactos por bloque) contra SqlShapeRegistry (buckets + cache)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InListBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    private List<String> skus;
+    private SqlShapeRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        skus = BenchmarkData.skus(size);
+        AppConfig appConfig = new AppConfig();
+        appConfig.setIuoSchema("IUO");
+        appConfig.setAtgCataSchema("ATG_CATA");
+        appConfig.setAtgCoreSchema("ATG_CORE");
+        registry = new SqlShapeRegistry(appConfig);
+        registry.init();
+    }
+
+    @Benchmark
+    public void exactPlaceholders(Blackhole bh) {
+        for (int i = 0; i < skus.size(); i += BATCH_SIZE) {
+            List<String> batch = skus.subList(i, Math.min(i + BATCH_SIZE, skus.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            bh.consume("DELETE FROM IUO.ONLINE_INVENTORY WHERE SKU_ID IN (" + placeholders + ")");
+            bh.consume(batch.toArray());
+        }
+    }
+
+    @Benchmark
+    public void bucketedRegistry(Blackhole bh) {
+        for (int i = 0; i < skus.size(); i += BATCH_SIZE) {
+            List<String> batch = skus.subList(i, Math.min(i + BATCH_SIZE, skus.size()));
+            bh.consume(registry.inList(SqlShapeRegistry.DELETE_BT, batch));
+        }
+    }
+}
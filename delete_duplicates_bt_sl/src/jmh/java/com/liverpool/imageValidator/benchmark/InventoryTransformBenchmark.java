@@ -0,0 +1,84 @@
+package com.liverpool.imageValidator.benchmark;
+
+import com.liverpool.imageValidator.entity.Inventory;
+import com.liverpool.imageValidator.repository.InventoryBulkRepository;
+import com.liverpool.imageValidator.utils.InventoryDocuments;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Transformaciones de documentos de inventario: la versión por documento de
+// updateMongoAfterDeletion, cleanInventoryFields y la construcción de los modelos del bulkWrite.
+// Los documentos viven en memoria, así que el tamaño mayor es 1M (10M no cabe en el heap del fork).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InventoryTransformBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private List<Inventory> source;
+    private List<Inventory> docs;
+    private List<String> skus;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        source = BenchmarkData.inventories(size);
+        skus = BenchmarkData.skus(size);
+    }
+
+    // fixOnlineEntry modifica los documentos: cada iteración parte de una copia
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        docs = BenchmarkData.copy(source);
+    }
+
+    @Benchmark
+    public int fixOnlineEntryPerDocument() {
+        int cases = 0;
+        for (Inventory doc : docs) {
+            cases += InventoryDocuments.fixOnlineEntry(doc);
+        }
+        return cases;
+    }
+
+    @Benchmark
+    public int cleanOnlineEntries() {
+        int entries = 0;
+        for (Inventory doc : source) {
+            entries += InventoryDocuments.cleanOnlineEntries(doc.getInventory()).size();
+        }
+        return entries;
+    }
+
+    // Modelos del bulkWrite en bloques de 1000 SKUs, como en deleteSkusByType
+    @Benchmark
+    public int bulkFixupModels() {
+        int models = 0;
+        for (int i = 0; i < skus.size(); i += 1000) {
+            List<WriteModel<Document>> chunk = InventoryBulkRepository.onlineFixupModels(
+                    new ArrayList<>(skus.subList(i, Math.min(i + 1000, skus.size()))));
+            models += chunk.size();
+        }
+        return models;
+    }
+}
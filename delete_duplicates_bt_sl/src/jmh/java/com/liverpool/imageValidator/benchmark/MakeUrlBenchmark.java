@@ -0,0 +1,44 @@
+package com.liverpool.imageValidator.benchmark;
+
+import com.liverpool.imageValidator.utils.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Util.makeUrl concatena con += (costo cuadrático): con 1M/10M SKUs una sola llamada no termina
+// en tiempo razonable, por eso los tamaños llegan a 10k
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MakeUrlBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private List<String> skus;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        skus = BenchmarkData.skus(size);
+    }
+
+    @Benchmark
+    public String makeUrl() {
+        return Util.makeUrl("https://inventory.example/api/skus?ids=", skus);
+    }
+}
@@ -0,0 +1,89 @@
+package com.liverpool.imageValidator.benchmark;
+
+import com.liverpool.imageValidator.models.SkuClassification;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.service.SkuClassificationEngine;
+import com.liverpool.imageValidator.utils.SortedSkuList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Clasificación BT/SL/Others y escritura de las listas (lo que hace SkuExportService.exportSkuLists
+// sin los logs ni las rutas con timestamp)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SkuClassificationBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    private final SkuClassificationEngine engine = new SkuClassificationEngine();
+    private List<SkusToDeleteDTO> rows;
+    private SkuClassification classification;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        rows = BenchmarkData.atgRows(size);
+        classification = engine.classify(rows);
+        dir = Files.createTempDirectory("jmh-export");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (String name : new String[]{"bt.txt", "sl.txt", "others.txt"}) {
+            Files.deleteIfExists(dir.resolve(name));
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public SkuClassification classify() {
+        return engine.classify(rows);
+    }
+
+    @Benchmark
+    public long writeLists() throws IOException {
+        return write(classification);
+    }
+
+    @Benchmark
+    public long classifyAndWrite() throws IOException {
+        return write(engine.classify(rows));
+    }
+
+    private long write(SkuClassification result) throws IOException {
+        return write(result.getBt(), "bt.txt") + write(result.getSl(), "sl.txt")
+                + write(result.getOthers(), "others.txt");
+    }
+
+    private long write(SortedSkuList list, String name) throws IOException {
+        Path file = dir.resolve(name);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            list.writeLines(writer);
+        }
+        return Files.size(file);
+    }
+}
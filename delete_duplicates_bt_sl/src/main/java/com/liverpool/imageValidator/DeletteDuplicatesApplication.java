@@ -1,51 +1,47 @@
 package com.liverpool.imageValidator;
 
-import com.liverpool.imageValidator.models.SkusToDeleteDTO;
-import com.liverpool.imageValidator.service.DataOracleServiceImpl;
-import com.liverpool.imageValidator.service.InventoryCleanupService;
-import com.liverpool.imageValidator.service.SkuExportService;
+import com.liverpool.imageValidator.service.JobService;
+import com.liverpool.imageValidator.service.RunService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 import org.springframework.context.ApplicationContext;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.jdbc.core.JdbcTemplate;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
 
 @Slf4j
-@SpringBootApplication
+// El cliente reactivo de Mongo lo crea ReactiveMongoStage solo si algún engine es reactive
+@SpringBootApplication(exclude = {MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class,
+        MongoReactiveRepositoriesAutoConfiguration.class})
 @EnableAutoConfiguration
 public class DeletteDuplicatesApplication implements CommandLineRunner {
 
     @Autowired
-    @Qualifier("iuoJdbcTemplate")
-    private JdbcTemplate iuoJdbcTemplate;
-
-    @Autowired
-    @Qualifier("atgJdbcTemplate")
-    private JdbcTemplate atgJdbcTemplate;
-
-    @Autowired
-    private MongoTemplate mongoTemplate;
-
-    @Autowired
-    private DataOracleServiceImpl dataOracleService;
-
-    @Autowired
-    private SkuExportService skuExportService;
-
-    @Autowired
-    private InventoryCleanupService inventoryCleanupService;
+    private RunService runService;
 
     public static void main(String[] args) {
-        ApplicationContext context = SpringApplication.run(DeletteDuplicatesApplication.class, args);
+        SpringApplication application = new SpringApplication(DeletteDuplicatesApplication.class);
+        if (isServiceMode(args)) {
+            // /jobs solo se registra en modo SERVICE y por omisión escucha solo en localhost
+            // (server.address en el yml o la línea de comandos lo cambia)
+            Map<String, Object> defaults = new HashMap<>();
+            defaults.put(JobService.SERVICE_PROPERTY, "true");
+            defaults.put("server.address", "127.0.0.1");
+            application.setDefaultProperties(defaults);
+        }
+        ApplicationContext context = application.run(args);
+        if (isServiceMode(args)) {
+            // el servidor web mantiene vivo el proceso; los jobs llegan por /jobs
+            log.info("Modo SERVICE activado: esperando jobs en /jobs");
+            return;
+        }
         log.info("Finalizo proceso de Eliminación de duplicados");
         int exitCode = SpringApplication.exit(context, () -> 0);
         System.exit(exitCode);
@@ -53,54 +49,16 @@ public class DeletteDuplicatesApplication implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
+        if (isServiceMode(args)) return;
         try {
-            if (args == null || args.length == 0) {
-                log.error("No se proporcionaron argumentos. Debes usar:");
-                log.error("  java -jar app.jar FULL");
-                log.error("  o");
-                log.error("  java -jar app.jar sku1,sku2,sku3");
-                return;
-            }
-            List<String> skusList;
-
-            if ("FULL".equalsIgnoreCase(args[0])){
-                // Obtenemos todos los sku de iuo
-                log.info("Modo FULL activado: obteniendo todos los SKUs de IUO...");
-                skusList = this.dataOracleService.getIuoSkus();
-                log.info("Número de SKUs obtenidos de IUO: {}", skusList.size());
-            } else {
-                // usamos sku puestos manualmente
-                String input = args[0];
-                List<String> skusArgs = Arrays.stream(input.split(","))
-                        .map(String::trim)
-                        .filter(s -> !s.isEmpty())
-                        .collect(Collectors.toList());
-
-                if (skusArgs.isEmpty()) {
-                    log.error("Los argumentos no contienen SKUs válidos. Ejemplo correcto:");
-                    log.error("  java -jar app.jar sku1,sku2,sku3");
-                    return;
-                }
-
-                log.info("SKUs proporcionados manualmente: {}", skusArgs.size());
-                skusList = this.dataOracleService.getIuoSkusManual(skusArgs);
-                log.info("Número de SKUs encontrados en IUO: {}", skusList.size());
-            }
-
-            //Obtener candidatos a apagarse
-            List<SkusToDeleteDTO> skusForDelete = this.dataOracleService.getValidSkusToRemove(skusList);
-            log.info("Número de SKUs candidatos a apagar: {}", skusForDelete.size());
-
-            // separamos los skus en listas y las imprimimos en la ruta
-            this.skuExportService.exportSkuLists(skusForDelete);
-
-            // Eliminamos SKUs de las respectivas tablas BT y SL en IUO
-            this.dataOracleService.deleteSkusFromFileByType("BT");
-            this.dataOracleService.deleteSkusFromFileByType("SL");
-
+            this.runService.execute(args);
         } catch (Exception e) {
             log.error("Error al obtener SKUs: {}", e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
+
+    private static boolean isServiceMode(String[] args) {
+        return args != null && args.length > 0 && "SERVICE".equalsIgnoreCase(args[0].trim());
+    }
 }
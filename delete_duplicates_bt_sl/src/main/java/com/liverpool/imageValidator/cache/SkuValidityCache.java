@@ -0,0 +1,235 @@
+package com.liverpool.imageValidator.cache;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.utils.ProductTypeMask;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Caché local SKU -> (tipos de producto en ATG, fecha de consulta) para no repetir la validación
+// de SKUs ya consultados. En disco es un log append-only: MAGIC, VERSION y registros
+// (sku UTF, máscara int, epochSecond int); el último registro de un SKU gana. En memoria es un
+// LinkedHashMap en orden de acceso (LRU) acotado a maxEntries.
+//   use: lee y escribe | refresh: no lee, vuelve a consultar y escribe | bypass: no lo toca
+@Slf4j
+@Component
+public class SkuValidityCache {
+
+    private static final int MAGIC = 0x534B5643; // "SKVC"
+    // 2: el bit de otro tipo ya no guarda el PRODUCT_TYPE (los archivos de la versión 1 se descartan)
+    private static final int VERSION = 2;
+
+    private final AppConfig appConfig;
+
+    // valor: máscara (ProductTypeMask) en los 32 bits altos y epochSecond de la consulta en los bajos
+    private LinkedHashMap<String, Long> entries;
+    private DataOutputStream appendLog;
+    private long fileRecords;
+    // el archivo terminó en un registro truncado o no se pudo leer: se reescribe antes de agregar
+    private boolean rewrite;
+
+    public SkuValidityCache(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public boolean isReading() {
+        return "use".equalsIgnoreCase(appConfig.getAtgCache().getMode());
+    }
+
+    public boolean isWriting() {
+        return isReading() || "refresh".equalsIgnoreCase(appConfig.getAtgCache().getMode());
+    }
+
+    public Path path() {
+        return Paths.get(appConfig.getAtgCache().getPath());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Lookup {
+        private final List<SkusToDeleteDTO> hits;
+        private final List<String> misses;
+        private final int hitCount;
+        private final int expiredCount;
+    }
+
+    // Separa los SKUs vigentes en caché (ya expandidos a filas de ATG) de los que hay que consultar
+    public synchronized Lookup lookup(List<String> skus) {
+        if (!isReading()) {
+            return new Lookup(new ArrayList<>(), skus, 0, 0);
+        }
+        ensureLoaded();
+        long oldest = now() - appConfig.getAtgCache().getTtlHours() * 3600L;
+        List<SkusToDeleteDTO> hits = new ArrayList<>();
+        List<String> misses = new ArrayList<>();
+        int hitCount = 0;
+        int expired = 0;
+        for (String sku : skus) {
+            Long value = entries.get(sku);
+            if (value == null) {
+                misses.add(sku);
+            } else if (checkedAt(value) < oldest) {
+                entries.remove(sku);
+                misses.add(sku);
+                expired++;
+            } else {
+                ProductTypeMask.expand(sku, mask(value), hits);
+                hitCount++;
+            }
+        }
+        return new Lookup(hits, misses, hitCount, expired);
+    }
+
+    // Guarda el resultado de ATG de los SKUs consultados; los que no regresaron filas quedan como no candidatos
+    public synchronized void record(List<String> queried, List<SkusToDeleteDTO> rows) {
+        if (!isWriting() || queried.isEmpty()) return;
+        ensureLoaded();
+        Map<String, Integer> masks = new HashMap<>(queried.size() * 2);
+        for (String sku : queried) {
+            masks.put(sku, ProductTypeMask.NONE);
+        }
+        for (SkusToDeleteDTO row : rows) {
+            Integer current = masks.get(row.getSkuId());
+            masks.put(row.getSkuId(), ProductTypeMask.merge(current == null ? 0 : current, row.getProductType()));
+        }
+        int checkedAt = (int) now();
+        try {
+            openLog();
+            for (Map.Entry<String, Integer> e : masks.entrySet()) {
+                entries.put(e.getKey(), pack(e.getValue(), checkedAt));
+                appendLog.writeUTF(e.getKey());
+                appendLog.writeInt(e.getValue());
+                appendLog.writeInt(checkedAt);
+                fileRecords++;
+            }
+            appendLog.flush();
+        } catch (IOException e) {
+            // la caché es una optimización: sin disco se sigue validando contra ATG
+            log.warn("No se pudo escribir la caché de ATG {}: {}", path(), e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (entries != null) return;
+        int maxEntries = Math.max(1, appConfig.getAtgCache().getMaxEntries());
+        entries = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        Path file = path();
+        if (!Files.exists(file)) return;
+
+        long start = System.currentTimeMillis();
+        try (BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             DataInputStream in = new DataInputStream(buffered)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Caché de ATG con formato desconocido, se descarta: {}", file.toAbsolutePath());
+                rewrite = true;
+                return;
+            }
+            while (true) {
+                buffered.mark(1);
+                if (buffered.read() < 0) break;
+                buffered.reset();
+                String sku;
+                int mask;
+                int checkedAt;
+                try {
+                    sku = in.readUTF();
+                    mask = in.readInt();
+                    checkedAt = in.readInt();
+                } catch (EOFException eof) {
+                    // registro truncado por una caída a mitad de escritura
+                    rewrite = true;
+                    break;
+                }
+                entries.put(sku, pack(mask, checkedAt));
+                fileRecords++;
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo leer la caché de ATG {}: {}", file.toAbsolutePath(), e.getMessage());
+            rewrite = true;
+        }
+        log.info("Caché de ATG cargada: {} SKUs ({} registros) en {}ms",
+                entries.size(), fileRecords, System.currentTimeMillis() - start);
+    }
+
+    // Abre el log para agregar; si tiene muchos registros repetidos o desalojados lo compacta antes
+    private void openLog() throws IOException {
+        if (appendLog != null) return;
+        Path file = path();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        if (rewrite || !Files.exists(file) || fileRecords > 2L * entries.size()) {
+            compact(file);
+        }
+        appendLog = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    private void compact(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Map.Entry<String, Long> e : entries.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeInt(mask(e.getValue()));
+                out.writeInt(checkedAt(e.getValue()));
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileRecords = entries.size();
+        rewrite = false;
+    }
+
+    private static long pack(int mask, int checkedAt) {
+        return ((long) mask << 32) | (checkedAt & 0xFFFFFFFFL);
+    }
+
+    private static int mask(long value) {
+        return (int) (value >>> 32);
+    }
+
+    private static long checkedAt(long value) {
+        return value & 0xFFFFFFFFL;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000L;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (appendLog == null) return;
+        try {
+            appendLog.close();
+        } catch (IOException e) {
+            log.warn("Error al cerrar la caché de ATG: {}", e.getMessage());
+        }
+        appendLog = null;
+    }
+}
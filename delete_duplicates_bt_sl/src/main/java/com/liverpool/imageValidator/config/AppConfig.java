@@ -3,6 +3,13 @@ package com.liverpool.imageValidator.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import lombok.Data;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @Component
@@ -15,6 +22,26 @@ public class AppConfig {
     private int threads;
     private int batchSize;
     private int numberBatches;
+    private int streamQueueCapacity = 10000;
+    // SKUs por página (cursor corto) al recorrer el cruce de IUO en STREAM y SHARD
+    private int iuoPageSize = 10000;
+    private AtgLookup atgLookup = new AtgLookup();
+    private MongoUpdate mongoUpdate = new MongoUpdate();
+    private Pacing pacing = new Pacing();
+    private SqlShapes sqlShapes = new SqlShapes();
+    private Journal journal = new Journal();
+    private Delta delta = new Delta();
+    private Metrics metrics = new Metrics();
+    private Delete delete = new Delete();
+    private Scheduler scheduler = new Scheduler();
+    private Export export = new Export();
+    private History history = new History();
+    private Cleanup cleanup = new Cleanup();
+    private Jobs jobs = new Jobs();
+    private ReactiveMongo reactiveMongo = new ReactiveMongo();
+    private AtgCache atgCache = new AtgCache();
+    private FileInput fileInput = new FileInput();
+    private Shard shard = new Shard();
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AppConfig.class);
 
@@ -27,7 +54,207 @@ public class AppConfig {
         log.info("threads: {}", threads);
         log.info("batchSize: {}", batchSize);
         log.info("numberBatches: {}", numberBatches);
+        log.info("streamQueueCapacity: {}", streamQueueCapacity);
+        log.info("iuoPageSize: {}", iuoPageSize);
+        log.info("atgLookup: {}", atgLookup);
+        log.info("mongoUpdate: {}", mongoUpdate);
+        log.info("pacing: {}", pacing);
+        log.info("sqlShapes: {}", sqlShapes);
+        log.info("journal: {}", journal);
+        log.info("delta: {}", delta);
+        log.info("metrics: {}", metrics);
+        log.info("delete: {}", delete);
+        log.info("scheduler: {}", scheduler);
+        log.info("export: {}", export);
+        log.info("history: {}", history);
+        log.info("cleanup: {}", cleanup);
+        log.info("jobs: {}", jobs);
+        log.info("reactiveMongo: {}", reactiveMongo);
+        log.info("atgCache: {}", atgCache);
+        log.info("fileInput: {}", fileInput);
+        log.info("shard: {}", shard);
         log.info("=========================");
     }
 
+    @Data
+    public static class AtgLookup {
+        // inlist | array | staging
+        private String mode = "inlist";
+        private int sliceSize = 20000;
+        private int fetchSize = 5000;
+        private String collectionType = "SYS.ODCIVARCHAR2LIST";
+        private String stagingTable = "LP_SKU_LOOKUP_GTT";
+        // probe | snapshot | auto
+        private String strategy = "probe";
+        private long snapshotMinSkus = 1000000;
+        private int snapshotFetchSize = 20000;
+    }
+
+    @Data
+    public static class MongoUpdate {
+        // bulk | document
+        private String mode = "bulk";
+        private boolean perCaseCounts = false;
+        // 0 = usa config.threads
+        private int workers = 0;
+        private int queueCapacity = 4;
+        private long shutdownTimeoutSeconds = 300;
+        // blocking (MongoTemplate) | reactive (ReactiveMongoStage)
+        private String engine = "blocking";
+    }
+
+    @Data
+    public static class Pacing {
+        // static | adaptive
+        private String policy = "static";
+        private long staticDelayMs = 120000;
+        private int minChunkSize = 50;
+        private int maxChunkSize = 1000;
+        private int chunkStep = 50;
+        private long initialDelayMs = 10000;
+        private long minDelayMs = 1000;
+        private long maxDelayMs = 120000;
+        private long delayStepMs = 2000;
+        private long targetLatencyMs = 3000;
+        private double backoffFactor = 0.5;
+        // none | oracle
+        private String healthProbe = "none";
+        private double healthMaxActiveSessions = 8.0;
+    }
+
+    @Data
+    public static class SqlShapes {
+        private List<Integer> buckets = new ArrayList<>(Arrays.asList(16, 64, 256, 1000));
+        private int statementCacheSize = 64;
+    }
+
+    @Data
+    public static class Journal {
+        private boolean enabled = true;
+        private String path = "files/journal/run.journal";
+    }
+
+    @Data
+    public static class Delta {
+        private String statePath = "files/state/delta.state";
+        // 0 = los no candidatos no vencen
+        private int revalidateAfterDays = 7;
+        // 0 = nunca forzar FULL desde DELTA
+        private int fullEveryDays = 7;
+    }
+
+    @Data
+    public static class Metrics {
+        private String reportDir = "files/reports";
+    }
+
+    @Data
+    public static class Delete {
+        // batch (DELETE ... WHERE SKU_ID = ? en JDBC batch) | inlist
+        private String mode = "batch";
+        private int transactionTimeoutSeconds = 300;
+    }
+
+    @Data
+    public static class Scheduler {
+        // BT y SL en paralelo
+        private boolean concurrentTypes = true;
+        // Bloques en vuelo por tipo (tabla de IUO)
+        private Map<String, Integer> inFlight = new HashMap<>();
+        private int maxIuoWriteConnections = 2;
+
+        public Scheduler() {
+            inFlight.put("BT", 1);
+            inFlight.put("SL", 1);
+        }
+    }
+
+    @Data
+    public static class Export {
+        // memory: clasificación directa al borrado, archivos en segundo plano | file: releer los archivos de delete
+        private String handoff = "file";
+        // filas candidatas arriba de las cuales la clasificación usa corridas ordenadas en disco (0 = nunca)
+        private long externalSortThreshold = 5000000;
+        // SKUs distintos por corrida en memoria antes de escribirla
+        private int runSize = 1000000;
+        // corridas abiertas a la vez en el merge
+        private int mergeFanIn = 64;
+        private String spillDir = "files/tmp/classify";
+    }
+
+    @Data
+    public static class History {
+        // text (archivos .txt por corrida) | archive (comprimido con índice) | both
+        private String format = "text";
+        private String archiveDir = "files/execution/archive";
+        private int blockSize = 4096;
+        private int bloomBitsPerSku = 8;
+    }
+
+    @Data
+    public static class Cleanup {
+        // SKUs por lectura $in y por bulk sin orden
+        private int batchSize = 1000;
+        // documentos por viaje del cursor en el recorrido completo de la colección
+        private int cursorBatchSize = 1000;
+        // blocking | reactive
+        private String engine = "blocking";
+    }
+
+    @Data
+    public static class Jobs {
+        // jobs en ejecución a la vez (modo SERVICE); las corridas que escriben se serializan igual
+        private int maxConcurrentJobs = 1;
+        private int queueCapacity = 100;
+        // jobs terminados que se conservan para consulta
+        private int retainedJobs = 200;
+        // token compartido que /jobs exige en el header X-Jobs-Token; sin token el modo SERVICE no arranca
+        @ToString.Exclude
+        private String token = "";
+    }
+
+    @Data
+    public static class ReactiveMongo {
+        // operaciones en vuelo por pipeline (por bloque de borrado o por limpieza)
+        private int maxInFlight = 64;
+        // modelos por bulkWrite
+        private int flushSize = 500;
+        private int maxRetries = 3;
+        private long retryBackoffMs = 200;
+    }
+
+    @Data
+    public static class AtgCache {
+        // use | refresh (reconsulta todo y reescribe) | bypass; por corrida: -Dconfig.atgCache.mode=refresh
+        // use es opt-in: con él la tabla de IUO a borrar depende de tipos de producto de hasta ttlHours
+        private String mode = "bypass";
+        private String path = "files/state/atg-validity.cache";
+        private int ttlHours = 72;
+        // LRU en memoria; los desalojados se descartan del archivo al compactar
+        private int maxEntries = 2000000;
+    }
+
+    @Data
+    public static class FileInput {
+        // directorio del que los jobs FILE del modo SERVICE pueden leer (la línea de comandos no se limita)
+        private String inputDir = "files/input";
+        // SKUs únicos por consulta de cruce con IUO
+        private int chunkSize = 1000;
+        // consultas de IUO en vuelo (usan el pool de IUO junto con los DELETE)
+        private int parallelism = 4;
+    }
+
+    @Data
+    public static class Shard {
+        // particiones ORA_HASH de la corrida; todas las instancias deben usar el mismo valor
+        private int partitions = 16;
+        // se crea en iuoSchema, como las demás tablas de IUO
+        private String leaseTable = "DD_PARTITION_LEASE";
+        // vacío: pid@host
+        private String owner = "";
+        private long leaseSeconds = 120;
+        private long renewSeconds = 30;
+        private long pollSeconds = 15;
+    }
+
 }
@@ -7,24 +7,45 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.zaxxer.hikari.HikariDataSource;
 
 @Configuration
 public class DataSourceConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
     @Bean(name = "iuoDataSource")
     @ConfigurationProperties(prefix = "datasource.primary")
-    public DataSource iuoDataSource() {
-        return DataSourceBuilder.create()
+    public DataSource iuoDataSource(AppConfig appConfig) {
+        HikariDataSource ds = DataSourceBuilder.create()
                 .type(HikariDataSource.class)
                 .build();
+        // Escrituras concurrentes (scheduler.maxIuoWriteConnections) más las lecturas del cursor
+        ds.setMaximumPoolSize(Math.max(DEFAULT_POOL_SIZE, appConfig.getScheduler().getMaxIuoWriteConnections() + 2));
+        enableStatementCache(ds, appConfig);
+        return ds;
     }
 
     @Bean(name = "atgDataSource")
     @ConfigurationProperties(prefix = "datasource.secondary")
-    public DataSource atgDataSource() {
-        return DataSourceBuilder.create()
+    public DataSource atgDataSource(AppConfig appConfig) {
+        HikariDataSource ds = DataSourceBuilder.create()
                 .type(HikariDataSource.class)
                 .build();
+        // Un hilo de validación = una conexión; datasource.secondary.maximum-pool-size lo sobreescribe
+        ds.setMaximumPoolSize(Math.max(DEFAULT_POOL_SIZE, appConfig.getThreads()));
+        enableStatementCache(ds, appConfig);
+        return ds;
+    }
+
+    // Cache implícito de ojdbc: las formas estables de SqlShapeRegistry se reutilizan por conexión
+    private void enableStatementCache(HikariDataSource ds, AppConfig appConfig) {
+        int cacheSize = appConfig.getSqlShapes().getStatementCacheSize();
+        if (cacheSize > 0) {
+            ds.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(cacheSize));
+        }
     }
 
     @Bean(name = "iuoJdbcTemplate")
@@ -36,4 +57,18 @@ public class DataSourceConfig {
     public JdbcTemplate atgJdbcTemplate(@Qualifier("atgDataSource") DataSource ds) {
         return new JdbcTemplate(ds);
     }
+
+    // Transacciones de IUO acotadas a un bloque de borrado
+    @Bean(name = "iuoTransactionManager")
+    public DataSourceTransactionManager iuoTransactionManager(@Qualifier("iuoDataSource") DataSource ds) {
+        return new DataSourceTransactionManager(ds);
+    }
+
+    @Bean(name = "iuoTransactionTemplate")
+    public TransactionTemplate iuoTransactionTemplate(
+            @Qualifier("iuoTransactionManager") DataSourceTransactionManager transactionManager, AppConfig appConfig) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setTimeout(appConfig.getDelete().getTransactionTimeoutSeconds());
+        return template;
+    }
 }
@@ -0,0 +1,83 @@
+package com.liverpool.imageValidator.controller;
+
+import com.liverpool.imageValidator.models.Job;
+import com.liverpool.imageValidator.models.JobRequest;
+import com.liverpool.imageValidator.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+// API del modo SERVICE: encolar corridas, consultar su avance y cancelarlas. Solo se registra en
+// modo SERVICE y cada llamada debe traer el token compartido en el header X-Jobs-Token.
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = JobService.SERVICE_PROPERTY, havingValue = "true")
+public class JobController {
+
+    private static final String TOKEN_HEADER = "X-Jobs-Token";
+
+    private final JobService jobService;
+
+    @PostMapping
+    public ResponseEntity<Job> submit(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                                      @RequestBody JobRequest request) {
+        authorize(token);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submit(request.getMode(), request.getSkus(), request.getPath(), request.getRunId()));
+    }
+
+    @GetMapping
+    public List<Job> list(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        authorize(token);
+        return jobService.list();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Job> get(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                                   @PathVariable String id) {
+        authorize(token);
+        Job job = jobService.get(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Job> cancel(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                                      @PathVariable String id) {
+        authorize(token);
+        Job job = jobService.cancel(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    private void authorize(String token) {
+        if (!jobService.isAuthorized(token)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Falta o no coincide " + TOKEN_HEADER);
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> queueFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(Collections.singletonMap("error", "La cola de jobs está llena"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.liverpool.imageValidator.delta;
+
+import com.liverpool.imageValidator.utils.LongIntHashMap;
+import com.liverpool.imageValidator.utils.SkuCodec;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Resultado de la última validación por SKU del cruce IUO: tipo de resultado y día (epochDay).
+// Los SKUs numéricos van codificados en un mapa primitivo; el resto en un HashMap.
+public class DeltaState {
+
+    // Sin filas en ATG que lo marquen como candidato
+    public static final int NOT_CANDIDATE = 0;
+    public static final int BT = 1;
+    public static final int SL = 2;
+    public static final int OTHERS = 3;
+
+    private static final int DAY_BITS = 24;
+    private static final int DAY_MASK = (1 << DAY_BITS) - 1;
+
+    final LongIntHashMap numeric;
+    final Map<String, Integer> others;
+    @Getter
+    private final int lastFullEpochDay;
+
+    public DeltaState(int expected, int lastFullEpochDay) {
+        this.numeric = new LongIntHashMap(expected);
+        this.others = new HashMap<>();
+        this.lastFullEpochDay = lastFullEpochDay;
+    }
+
+    public void put(String sku, int outcome, int epochDay) {
+        putValue(sku, (outcome << DAY_BITS) | (epochDay & DAY_MASK));
+    }
+
+    public void putValue(String sku, int value) {
+        long packed = SkuCodec.pack(sku);
+        if (packed != SkuCodec.NOT_PACKABLE) {
+            numeric.put(packed, value);
+        } else {
+            others.put(sku, value);
+        }
+    }
+
+    // Valor codificado o LongIntHashMap.MISSING si el SKU no estaba en la corrida anterior
+    public int get(String sku) {
+        long packed = SkuCodec.pack(sku);
+        if (packed != SkuCodec.NOT_PACKABLE) {
+            return numeric.get(packed);
+        }
+        Integer value = others.get(sku);
+        return value != null ? value : LongIntHashMap.MISSING;
+    }
+
+    public static int outcome(int value) {
+        return value >>> DAY_BITS;
+    }
+
+    public static int epochDay(int value) {
+        return value & DAY_MASK;
+    }
+
+    public int size() {
+        return numeric.size() + others.size();
+    }
+}
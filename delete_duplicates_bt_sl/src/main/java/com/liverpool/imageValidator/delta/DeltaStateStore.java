@@ -0,0 +1,95 @@
+package com.liverpool.imageValidator.delta;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+// Persiste el DeltaState en un archivo binario local. Se escribe a un temporal y se
+// reemplaza con un move atómico para no dejar un estado a medias.
+@Slf4j
+@Component
+public class DeltaStateStore {
+
+    private static final int MAGIC = 0x44454C54; // "DELT"
+    private static final int VERSION = 1;
+
+    private final AppConfig appConfig;
+
+    public DeltaStateStore(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public Path path() {
+        return Paths.get(appConfig.getDelta().getStatePath());
+    }
+
+    // null si no hay estado previo o no se puede leer
+    public DeltaState load() {
+        Path file = path();
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Estado DELTA con formato desconocido: {}", file.toAbsolutePath());
+                return null;
+            }
+            int lastFull = in.readInt();
+            int numericCount = in.readInt();
+            int otherCount = in.readInt();
+            DeltaState state = new DeltaState(numericCount, lastFull);
+            for (int i = 0; i < numericCount; i++) {
+                state.numeric.put(in.readLong(), in.readInt());
+            }
+            for (int i = 0; i < otherCount; i++) {
+                state.others.put(in.readUTF(), in.readInt());
+            }
+            log.info("Estado DELTA cargado: {} SKUs (último FULL epochDay={})", state.size(), lastFull);
+            return state;
+        } catch (IOException e) {
+            log.warn("No se pudo leer el estado DELTA {}: {}", file.toAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(DeltaState state) throws IOException {
+        Path file = path();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(state.getLastFullEpochDay());
+            out.writeInt(state.numeric.size());
+            out.writeInt(state.others.size());
+            IOException[] error = new IOException[1];
+            state.numeric.forEach((key, value) -> {
+                if (error[0] != null) return;
+                try {
+                    out.writeLong(key);
+                    out.writeInt(value);
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            });
+            if (error[0] != null) throw error[0];
+            for (Map.Entry<String, Integer> e : state.others.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Estado DELTA guardado: {} SKUs en {}", state.size(), file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,58 @@
+package com.liverpool.imageValidator.history;
+
+import com.liverpool.imageValidator.utils.BloomFilter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Entrada del índice de una corrida: un bloque comprimido de SKUs ordenados de un tipo
+@Getter
+@AllArgsConstructor
+public class ArchiveBlock {
+
+    private final String productType;
+    private final String firstSku;
+    private final String lastSku;
+    private final long offset;
+    private final int length;
+    private final int count;
+    private final BloomFilter bloom;
+
+    // Descarta sin descomprimir: fuera del rango del bloque o ausente en su filtro
+    public boolean mayContain(String sku) {
+        return firstSku.compareTo(sku) <= 0 && lastSku.compareTo(sku) >= 0 && bloom.mightContain(sku);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(productType);
+        out.writeUTF(firstSku);
+        out.writeUTF(lastSku);
+        out.writeLong(offset);
+        out.writeInt(length);
+        out.writeInt(count);
+        out.writeByte(bloom.hashes());
+        long[] words = bloom.words();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static ArchiveBlock read(DataInputStream in) throws IOException {
+        String productType = in.readUTF();
+        String firstSku = in.readUTF();
+        String lastSku = in.readUTF();
+        long offset = in.readLong();
+        int length = in.readInt();
+        int count = in.readInt();
+        int hashes = in.readUnsignedByte();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new ArchiveBlock(productType, firstSku, lastSku, offset, length, count, BloomFilter.of(words, hashes));
+    }
+}
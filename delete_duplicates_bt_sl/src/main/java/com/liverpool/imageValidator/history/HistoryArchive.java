@@ -0,0 +1,269 @@
+package com.liverpool.imageValidator.history;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.utils.BloomFilter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Histórico comprimido de corridas. Por corrida:
+//   run_<ts>.skz  bloques GZIP independientes de SKUs ordenados (codificación por prefijo común)
+//   run_<ts>.idx  por bloque: tipo, primer/último SKU, posición en el .skz y un filtro de Bloom
+// El .idx se escribe al final (temporal + move), así una corrida sin índice se ignora en LOOKUP.
+@Slf4j
+@Component
+public class HistoryArchive {
+
+    private static final int MAGIC = 0x534B4958; // "SKIX"
+    private static final int VERSION = 1;
+    private static final String PREFIX = "run_";
+    private static final String DATA_EXT = ".skz";
+    private static final String INDEX_EXT = ".idx";
+
+    private final AppConfig appConfig;
+
+    public HistoryArchive(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    // text | archive | both
+    public boolean isEnabled() {
+        return !"text".equalsIgnoreCase(appConfig.getHistory().getFormat());
+    }
+
+    public boolean isTextEnabled() {
+        return !"archive".equalsIgnoreCase(appConfig.getHistory().getFormat());
+    }
+
+    public Path dir() {
+        return Paths.get(appConfig.getHistory().getArchiveDir());
+    }
+
+    // Dos corridas en el mismo segundo (particiones SHARD, jobs del modo SERVICE) no se pisan: el .skz
+    // se crea con CREATE_NEW y si ya existe la corrida toma el siguiente sufijo libre (run_<ts>_001, ...)
+    public Writer open(String ts) throws IOException {
+        Files.createDirectories(dir());
+        for (int attempt = 0; ; attempt++) {
+            String run = attempt == 0 ? ts : ts + String.format("_%03d", attempt);
+            Path data = dir().resolve(PREFIX + run + DATA_EXT);
+            OutputStream out;
+            try {
+                out = Files.newOutputStream(data, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            log.info("Archivo histórico comprimido -> {}", data.toAbsolutePath());
+            return new Writer(data, out, dir().resolve(PREFIX + run + INDEX_EXT),
+                    Math.max(1, appConfig.getHistory().getBlockSize()),
+                    appConfig.getHistory().getBloomBitsPerSku());
+        }
+    }
+
+    // Acumula SKUs por tipo y escribe un bloque cada blockSize SKUs. Cada bloque se ordena antes de
+    // comprimirse: en FULL la entrada ya viene ordenada y los rangos no se traslapan; en STREAM sí,
+    // y el filtro de Bloom es el que evita descomprimir.
+    public static class Writer implements Closeable {
+
+        private final Path dataPath;
+        private final Path indexPath;
+        private final int blockSize;
+        private final int bloomBitsPerSku;
+        private final OutputStream data;
+        private final Map<String, List<String>> pending = new LinkedHashMap<>();
+        private final List<ArchiveBlock> blocks = new ArrayList<>();
+        private long offset;
+        private long skus;
+
+        private Writer(Path dataPath, OutputStream data, Path indexPath, int blockSize, int bloomBitsPerSku) {
+            this.dataPath = dataPath;
+            this.indexPath = indexPath;
+            this.blockSize = blockSize;
+            this.bloomBitsPerSku = bloomBitsPerSku;
+            this.data = new BufferedOutputStream(data, 1 << 16);
+        }
+
+        // Nombre de la corrida en LOOKUP (run_<nombre>.skz)
+        public String getRun() {
+            String name = dataPath.getFileName().toString();
+            return name.substring(PREFIX.length(), name.length() - DATA_EXT.length());
+        }
+
+        public void append(String productType, List<String> skuList) throws IOException {
+            List<String> buffer = pending.get(productType);
+            if (buffer == null) {
+                buffer = new ArrayList<>(blockSize);
+                pending.put(productType, buffer);
+            }
+            for (String sku : skuList) {
+                buffer.add(sku);
+                if (buffer.size() >= blockSize) {
+                    writeBlock(productType, buffer);
+                    buffer.clear();
+                }
+            }
+        }
+
+        private void writeBlock(String productType, List<String> buffer) throws IOException {
+            List<String> sorted = new ArrayList<>(buffer);
+            Collections.sort(sorted);
+            BloomFilter bloom = BloomFilter.create(sorted.size(), bloomBitsPerSku);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(sorted.size() * 4);
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes, 1 << 14))) {
+                out.writeInt(sorted.size());
+                String previous = "";
+                for (String sku : sorted) {
+                    int common = Math.min(255, commonPrefix(previous, sku));
+                    out.writeByte(common);
+                    out.writeUTF(sku.substring(common));
+                    bloom.add(sku);
+                    previous = sku;
+                }
+            }
+            byte[] block = bytes.toByteArray();
+            data.write(block);
+            blocks.add(new ArchiveBlock(productType, sorted.get(0), sorted.get(sorted.size() - 1),
+                    offset, block.length, sorted.size(), bloom));
+            offset += block.length;
+            skus += sorted.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                for (Map.Entry<String, List<String>> e : pending.entrySet()) {
+                    if (!e.getValue().isEmpty()) {
+                        writeBlock(e.getKey(), e.getValue());
+                    }
+                }
+            } finally {
+                data.close();
+            }
+
+            Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(blocks.size());
+                for (ArchiveBlock block : blocks) {
+                    block.write(out);
+                }
+            }
+            Files.move(tmp, indexPath, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Histórico comprimido: {} SKUs en {} bloques, {} bytes de datos ({})",
+                    skus, blocks.size(), offset, dataPath.getFileName());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+        private final String run;
+        private final String productType;
+    }
+
+    // Corridas (más antigua primero) en cuyo histórico aparece el SKU; solo descomprime los bloques
+    // que pasan el rango y el filtro de Bloom del índice
+    public List<Match> lookup(String sku) throws IOException {
+        List<Match> matches = new ArrayList<>();
+        if (!Files.isDirectory(dir())) {
+            log.warn("No existe el directorio de histórico comprimido {}", dir().toAbsolutePath());
+            return matches;
+        }
+        List<Path> indexes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir(), PREFIX + "*" + INDEX_EXT)) {
+            for (Path file : files) {
+                indexes.add(file);
+            }
+        }
+        Collections.sort(indexes);
+
+        int opened = 0;
+        for (Path index : indexes) {
+            String name = index.getFileName().toString();
+            String run = name.substring(PREFIX.length(), name.length() - INDEX_EXT.length());
+            Path data = index.resolveSibling(PREFIX + run + DATA_EXT);
+            for (ArchiveBlock block : readIndex(index)) {
+                if (!block.mayContain(sku)) continue;
+                opened++;
+                if (blockContains(data, block, sku)) {
+                    matches.add(new Match(run, block.getProductType()));
+                }
+            }
+        }
+        log.info("LOOKUP {}: {} corridas revisadas, {} bloques descomprimidos, {} coincidencias",
+                sku, indexes.size(), opened, matches.size());
+        return matches;
+    }
+
+    private List<ArchiveBlock> readIndex(Path index) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(index), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Índice de histórico con formato desconocido: {}", index.toAbsolutePath());
+                return Collections.emptyList();
+            }
+            int count = in.readInt();
+            List<ArchiveBlock> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blocks.add(ArchiveBlock.read(in));
+            }
+            return blocks;
+        }
+    }
+
+    private boolean blockContains(Path data, ArchiveBlock block, String sku) throws IOException {
+        byte[] bytes = new byte[block.getLength()];
+        try (RandomAccessFile file = new RandomAccessFile(data.toFile(), "r")) {
+            file.seek(block.getOffset());
+            file.readFully(bytes);
+        }
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes)))) {
+            int count = in.readInt();
+            String previous = "";
+            for (int i = 0; i < count; i++) {
+                int common = in.readUnsignedByte();
+                String current = previous.substring(0, common) + in.readUTF();
+                int cmp = current.compareTo(sku);
+                if (cmp == 0) return true;
+                if (cmp > 0) return false;
+                previous = current;
+            }
+        }
+        return false;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,96 @@
+package com.liverpool.imageValidator.journal;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Estado reconstruido a partir de la bitácora: qué rangos de cada lista ya se confirmaron
+@Getter
+public class JournalState {
+
+    private final String mode;
+    private final Map<String, TypeState> types = new LinkedHashMap<>();
+    private boolean finished;
+
+    JournalState(String mode) {
+        this.mode = mode;
+    }
+
+    void apply(String[] f) {
+        switch (f[0]) {
+            case RunJournal.PLAN:
+                types.put(f[1], new TypeState(f[1], Integer.parseInt(f[2]), f[3]));
+                break;
+            case RunJournal.ORACLE:
+                type(f[1]).committed.put(Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+                break;
+            case RunJournal.MONGO:
+                type(f[1]).mongoDone.put(Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+                break;
+            case RunJournal.DONE:
+                type(f[1]).done = true;
+                break;
+            case RunJournal.END:
+                finished = true;
+                break;
+            default:
+                // RESUME y registros desconocidos no cambian el estado
+        }
+    }
+
+    private TypeState type(String productType) {
+        TypeState state = types.get(productType);
+        if (state == null) {
+            throw new IllegalStateException("Registro sin PLAN para " + productType);
+        }
+        return state;
+    }
+
+    @Getter
+    public static class TypeState {
+        private final String productType;
+        private final int total;
+        private final String fingerprint;
+        // offset -> tamaño del bloque
+        private final TreeMap<Integer, Integer> committed = new TreeMap<>();
+        private final TreeMap<Integer, Integer> mongoDone = new TreeMap<>();
+        private boolean done;
+
+        TypeState(String productType, int total, String fingerprint) {
+            this.productType = productType;
+            this.total = total;
+            this.fingerprint = fingerprint;
+        }
+
+        // Rangos [inicio, fin) todavía no confirmados en Oracle
+        public List<int[]> pendingOracleRanges() {
+            List<int[]> ranges = new ArrayList<>();
+            int cursor = 0;
+            for (Map.Entry<Integer, Integer> e : committed.entrySet()) {
+                if (e.getKey() > cursor) {
+                    ranges.add(new int[]{cursor, e.getKey()});
+                }
+                cursor = Math.max(cursor, e.getKey() + e.getValue());
+            }
+            if (cursor < total) {
+                ranges.add(new int[]{cursor, total});
+            }
+            return ranges;
+        }
+
+        // Bloques confirmados en Oracle cuya actualización en Mongo no terminó
+        public List<int[]> pendingMongoChunks() {
+            List<int[]> chunks = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> e : committed.entrySet()) {
+                if (!e.getValue().equals(mongoDone.get(e.getKey()))) {
+                    chunks.add(new int[]{e.getKey(), e.getKey() + e.getValue()});
+                }
+            }
+            return chunks;
+        }
+    }
+}
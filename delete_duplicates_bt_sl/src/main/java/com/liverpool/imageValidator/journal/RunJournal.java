@@ -0,0 +1,182 @@
+package com.liverpool.imageValidator.journal;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Bitácora append-only de la fase de borrado. Cada registro es una línea que se fuerza a disco
+// antes de continuar, así un RESUME sabe qué bloques ya se confirmaron en Oracle y en Mongo.
+//   RUN|<modo>                     inicio de corrida (trunca la bitácora anterior)
+//   PLAN|<tipo>|<total>|<huella>   lista a eliminar de un tipo
+//   ORACLE|<tipo>|<offset>|<n>|<filas>   bloque confirmado en IUO (filas -1: el driver no las informó)
+//   MONGO|<tipo>|<offset>|<n>      bloque actualizado en Mongo
+//   DONE|<tipo>   /   END
+@Slf4j
+@Component
+public class RunJournal {
+
+    static final String RUN = "RUN";
+    static final String RESUME = "RESUME";
+    static final String PLAN = "PLAN";
+    static final String ORACLE = "ORACLE";
+    static final String MONGO = "MONGO";
+    static final String DONE = "DONE";
+    static final String END = "END";
+
+    private final AppConfig appConfig;
+    private FileChannel channel;
+
+    public RunJournal(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    public boolean isEnabled() {
+        return appConfig.getJournal().isEnabled();
+    }
+
+    public Path path() {
+        return Paths.get(appConfig.getJournal().getPath());
+    }
+
+    public synchronized void startRun(String mode) {
+        if (!isEnabled()) return;
+        JournalState previous = load();
+        if (previous != null && !previous.isFinished()) {
+            log.warn("La bitácora {} tenía una corrida sin terminar; se descarta al iniciar {}", path(), mode);
+        }
+        close();
+        open(StandardOpenOption.TRUNCATE_EXISTING);
+        append(RUN, mode);
+    }
+
+    // Reabre la bitácora existente para seguir agregando registros, descartando un registro truncado al final
+    public synchronized void resumeRun() {
+        if (!isEnabled()) return;
+        close();
+        open(StandardOpenOption.WRITE);
+        try {
+            byte[] content = Files.readAllBytes(path());
+            int keep = content.length;
+            while (keep > 0 && content[keep - 1] != '\n') {
+                keep--;
+            }
+            channel.truncate(keep);
+            channel.position(keep);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reparar la bitácora " + path(), e);
+        }
+        append(RESUME);
+    }
+
+    public void plan(String productType, List<String> skus) {
+        append(PLAN, productType, String.valueOf(skus.size()), fingerprint(skus));
+    }
+
+    public void oracleCommitted(String productType, int offset, int size, int deleted) {
+        append(ORACLE, productType, String.valueOf(offset), String.valueOf(size), String.valueOf(deleted));
+    }
+
+    public void mongoDone(String productType, int offset, int size) {
+        append(MONGO, productType, String.valueOf(offset), String.valueOf(size));
+    }
+
+    public void typeDone(String productType) {
+        append(DONE, productType);
+    }
+
+    public synchronized void finishRun() {
+        append(END);
+        close();
+    }
+
+    private synchronized void append(String... fields) {
+        if (channel == null) return;
+        String line = String.join("|", fields) + "\n";
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en la bitácora " + path(), e);
+        }
+    }
+
+    // Lee la bitácora; devuelve null si no existe o no tiene corrida
+    public JournalState load() {
+        Path file = path();
+        if (!Files.exists(file)) return null;
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la bitácora " + file, e);
+        }
+        // lo posterior al último salto de línea es un registro truncado por una caída a mitad de escritura
+        int complete = content.lastIndexOf('\n');
+        if (complete < 0) return null;
+        JournalState state = null;
+        for (String line : content.substring(0, complete).split("\n")) {
+            String[] f = line.split("\\|");
+            try {
+                if (RUN.equals(f[0])) {
+                    state = new JournalState(f[1]);
+                } else if (state != null) {
+                    state.apply(f);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Registro de bitácora ignorado: '{}'", line);
+            }
+        }
+        return state;
+    }
+
+    // Huella de la lista (contenido y orden) para detectar que el archivo a eliminar cambió
+    public static String fingerprint(List<String> skus) {
+        long hash = 0xcbf29ce484222325L;
+        for (String sku : skus) {
+            for (int i = 0; i < sku.length(); i++) {
+                hash = (hash ^ sku.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ '\n') * 0x100000001b3L;
+        }
+        return Long.toHexString(hash);
+    }
+
+    private void open(StandardOpenOption mode) {
+        try {
+            Path file = path();
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+            log.info("Bitácora de corrida: {}", file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir la bitácora " + path(), e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error al cerrar la bitácora: {}", e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,226 @@
+package com.liverpool.imageValidator.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.liverpool.imageValidator.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Métricas por etapa (Micrometer). Los timers publican p50/p95/p99 e histograma; al terminar
+// la corrida se escribe un resumen JSON y CSV con conteos, latencias y throughput.
+// Cada medición va al registro de la aplicación (acumulado del proceso) y a un registro propio de la
+// corrida; el reporte sale del segundo, así en modo SERVICE cada job reporta solo lo suyo.
+@Slf4j
+@Component
+public class RunMetrics {
+
+    public static final String PREFIX = "delete.";
+
+    private static final DateTimeFormatter TS_FMT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final MeterRegistry registry;
+    private final AppConfig appConfig;
+    private volatile SimpleMeterRegistry runRegistry;
+    private volatile MeterRegistry recording;
+    private volatile long runStartNanos = System.nanoTime();
+    private volatile LocalDateTime runStart = LocalDateTime.now();
+
+    public RunMetrics(MeterRegistry registry, AppConfig appConfig) {
+        this.registry = registry;
+        this.appConfig = appConfig;
+        startRun();
+    }
+
+    public void startRun() {
+        SimpleMeterRegistry current = new SimpleMeterRegistry();
+        CompositeMeterRegistry both = new CompositeMeterRegistry();
+        both.add(registry);
+        both.add(current);
+        runRegistry = current;
+        recording = both;
+        runStartNanos = System.nanoTime();
+        runStart = LocalDateTime.now();
+    }
+
+    public void recordIuoFetch(long nanos, int skus) {
+        timer("iuo.fetch").record(nanos, TimeUnit.NANOSECONDS);
+        counter("iuo.skus").increment(skus);
+    }
+
+    public void recordIuoStreamed(long skus) {
+        counter("iuo.skus").increment(skus);
+    }
+
+    public void recordAtgBatch(String strategy, long nanos, int skus, int candidates) {
+        timer("atg.batch", "strategy", strategy).record(nanos, TimeUnit.NANOSECONDS);
+        counter("atg.skus", "strategy", strategy).increment(skus);
+        counter("atg.candidates", "strategy", strategy).increment(candidates);
+    }
+
+    public void recordAtgCache(int hits, int misses, int expired) {
+        counter("atg.cache.hits").increment(hits);
+        counter("atg.cache.misses").increment(misses);
+        counter("atg.cache.expired").increment(expired);
+    }
+
+    public void recordClassification(long nanos, int rows) {
+        timer("classification").record(nanos, TimeUnit.NANOSECONDS);
+        counter("classification.rows").increment(rows);
+    }
+
+    public void recordExport(long nanos, long skus) {
+        timer("export").record(nanos, TimeUnit.NANOSECONDS);
+        counter("export.skus").increment(skus);
+    }
+
+    // rows < 0: el driver no informó filas (ChunkDeleteResult.UNKNOWN_ROWS); no se cuentan como 0
+    public void recordOracleChunk(String productType, long nanos, int skus, int rows) {
+        timer("oracle.chunk", "type", productType).record(nanos, TimeUnit.NANOSECONDS);
+        counter("oracle.skus", "type", productType).increment(skus);
+        if (rows >= 0) {
+            counter("oracle.rows", "type", productType).increment(rows);
+        } else {
+            counter("oracle.skus.unknown.rows", "type", productType).increment(skus);
+        }
+    }
+
+    public void recordOracleSkusWithoutRows(String productType, int skus) {
+        counter("oracle.skus.without.rows", "type", productType).increment(skus);
+    }
+
+    // mongo.sku solo tiene muestras reales (modo document, recordMongoDocument); en bulk y reactivo
+    // no hay operación por SKU y basta el tiempo del bloque con su conteo de SKUs
+    public void recordMongoChunk(String productType, long nanos, int skus) {
+        timer("mongo.chunk", "type", productType).record(nanos, TimeUnit.NANOSECONDS);
+        counter("mongo.skus", "type", productType).increment(skus);
+    }
+
+    public void recordMongoDocument(String productType, long nanos) {
+        timer("mongo.sku", "type", productType).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMongoFailure(String productType, int skus) {
+        counter("mongo.failed.skus", "type", productType).increment(skus);
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(PREFIX + name)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(recording);
+    }
+
+    private Counter counter(String name, String... tags) {
+        return Counter.builder(PREFIX + name).tags(tags).register(recording);
+    }
+
+    // Resumen de la corrida en files/reports (run_<ts>.json y run_<ts>.csv)
+    public void writeReport(String mode) {
+        double elapsedSeconds = (System.nanoTime() - runStartNanos) / 1e9;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<Meter> meters = runRegistry.getMeters().stream()
+                .filter(m -> m.getId().getName().startsWith(PREFIX))
+                .sorted(Comparator.comparing((Meter m) -> m.getId().getName()).thenComparing(m -> tags(m)))
+                .collect(Collectors.toList());
+        for (Meter meter : meters) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", meter.getId().getName());
+            row.put("tags", tags(meter));
+            if (meter instanceof Timer) {
+                HistogramSnapshot snapshot = ((Timer) meter).takeSnapshot();
+                row.put("count", snapshot.count());
+                row.put("totalMs", round(snapshot.total(TimeUnit.MILLISECONDS)));
+                row.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+                row.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+                for (ValueAtPercentile p : snapshot.percentileValues()) {
+                    row.put("p" + Math.round(p.percentile() * 100) + "Ms", round(p.value(TimeUnit.MILLISECONDS)));
+                }
+                row.put("perSecond", round(snapshot.count() / Math.max(elapsedSeconds, 1e-9)));
+            } else if (meter instanceof Counter) {
+                double count = ((Counter) meter).count();
+                row.put("count", round(count));
+                row.put("perSecond", round(count / Math.max(elapsedSeconds, 1e-9)));
+            } else {
+                continue;
+            }
+            rows.add(row);
+        }
+
+        try {
+            Path dir = Paths.get(appConfig.getMetrics().getReportDir());
+            Files.createDirectories(dir);
+            String ts = runStart.format(TS_FMT);
+            Path json = dir.resolve("run_" + ts + ".json");
+            Path csv = dir.resolve("run_" + ts + ".csv");
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("mode", mode);
+            report.put("start", runStart.toString());
+            report.put("elapsedSeconds", round(elapsedSeconds));
+            report.put("meters", rows);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+            writeCsv(csv, rows);
+
+            log.info("Reporte de la corrida: {} | {}", json.toAbsolutePath(), csv.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("No fue posible escribir el reporte de métricas: {}", e.getMessage(), e);
+        }
+    }
+
+    private static void writeCsv(Path csv, List<Map<String, Object>> rows) throws IOException {
+        List<String> columns = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            for (String column : row.keySet()) {
+                if (!columns.contains(column)) columns.add(column);
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", columns));
+            writer.newLine();
+            for (Map<String, Object> row : rows) {
+                List<String> values = new ArrayList<>(columns.size());
+                for (String column : columns) {
+                    Object value = row.get(column);
+                    values.add(value == null ? "" : value.toString());
+                }
+                writer.write(String.join(",", values));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String tags(Meter meter) {
+        return meter.getId().getTags().stream()
+                .map(t -> t.getKey() + "=" + t.getValue())
+                .collect(Collectors.joining(";"));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000d) / 1000d;
+    }
+}
@@ -0,0 +1,27 @@
+package com.liverpool.imageValidator.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ChunkDeleteResult {
+
+    // deletedRows cuando el driver no informa conteos (SUCCESS_NO_INFO): el bloque sí se eliminó
+    public static final int UNKNOWN_ROWS = -1;
+
+    // Filas afectadas en total (suma de los conteos por SKU conocidos); UNKNOWN_ROWS si no se conocen
+    private int deletedRows;
+    // SKUs sin fila en la tabla (ya eliminados o inexistentes)
+    private List<String> skusWithoutRows;
+    // SKUs que eliminaron más de una fila
+    private int skusWithMultipleRows;
+    // false si el driver no informó conteos por SKU
+    private boolean perSkuCounts;
+
+    public boolean isRowCountKnown() {
+        return deletedRows != UNKNOWN_ROWS;
+    }
+}
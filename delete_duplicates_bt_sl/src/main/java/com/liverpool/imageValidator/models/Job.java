@@ -0,0 +1,45 @@
+package com.liverpool.imageValidator.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Future;
+
+// Corrida enviada en modo SERVICE; los campos mutables los actualiza el hilo del job
+@Getter
+@Setter
+public class Job {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    private final String id;
+    private final List<String> args;
+    private final Instant submittedAt = Instant.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile String stage;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    @JsonIgnore
+    private volatile Future<?> future;
+
+    public Job(String id, List<String> args) {
+        this.id = id;
+        this.args = args;
+    }
+
+    public Long getElapsedMs() {
+        if (startedAt == null) return null;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return end.toEpochMilli() - startedAt.toEpochMilli();
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+}
@@ -0,0 +1,20 @@
+package com.liverpool.imageValidator.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Cuerpo de POST /jobs: {"mode": "FULL"}, {"skus": ["123", "456"]} (manual) o {"mode": "FILE", "path": "..."}
+@Data
+@NoArgsConstructor
+public class JobRequest {
+
+    // FULL | DELTA | STREAM | RESUME | LOOKUP | CLEANUP | FILE | SHARD; vacío o MANUAL con skus
+    private String mode;
+    private List<String> skus;
+    // archivo de SKUs en el servidor (modo FILE)
+    private String path;
+    // corrida compartida entre instancias (modo SHARD)
+    private String runId;
+}
@@ -0,0 +1,19 @@
+package com.liverpool.imageValidator.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MongoFixupResult {
+
+    // -1 cuando el bulk se ejecutó en una sola llamada (el servidor solo regresa totales)
+    private long emptyList;
+    private long missingOnline;
+    private long staleOnline;
+    private long matched;
+    private long modified;
+
+}
@@ -0,0 +1,26 @@
+package com.liverpool.imageValidator.models;
+
+import com.liverpool.imageValidator.utils.SortedSkuList;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SkuClassification {
+
+    // Listas finales (ordenadas, sin repetidos)
+    private SortedSkuList bt;
+    private SortedSkuList sl;
+    private SortedSkuList others;
+
+    // Filas recibidas por tipo antes de mover duplicados
+    private long btRows;
+    private long slRows;
+    private long othersRows;
+    private long duplicated;
+
+    public static SkuClassification empty() {
+        return new SkuClassification(SortedSkuList.empty(), SortedSkuList.empty(), SortedSkuList.empty(),
+                0L, 0L, 0L, 0L);
+    }
+}
@@ -0,0 +1,11 @@
+package com.liverpool.imageValidator.pacing;
+
+// Señal opcional para el control de ritmo: true cuando la base pide bajar la carga
+@FunctionalInterface
+public interface DatabaseHealthProbe {
+
+    DatabaseHealthProbe NONE = () -> false;
+
+    boolean isUnderPressure();
+
+}
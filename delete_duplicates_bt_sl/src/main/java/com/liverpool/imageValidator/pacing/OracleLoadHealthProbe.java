@@ -0,0 +1,42 @@
+package com.liverpool.imageValidator.pacing;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Lee "Average Active Sessions" de V$SYSMETRIC en IUO. Si no hay permisos se desactiva.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "config.pacing", name = "healthProbe", havingValue = "oracle")
+public class OracleLoadHealthProbe implements DatabaseHealthProbe {
+
+    private static final String SELECT_ACTIVE_SESSIONS =
+            "SELECT VALUE FROM V$SYSMETRIC WHERE METRIC_NAME = 'Average Active Sessions' AND GROUP_ID = 2";
+
+    private final JdbcTemplate iuoJdbc;
+    private final AppConfig appConfig;
+    private volatile boolean disabled;
+
+    public OracleLoadHealthProbe(@Qualifier("iuoJdbcTemplate") JdbcTemplate iuoJdbc, AppConfig appConfig) {
+        this.iuoJdbc = iuoJdbc;
+        this.appConfig = appConfig;
+    }
+
+    @Override
+    public boolean isUnderPressure() {
+        if (disabled) return false;
+        try {
+            Double activeSessions = iuoJdbc.queryForObject(SELECT_ACTIVE_SESSIONS, Double.class);
+            double limit = appConfig.getPacing().getHealthMaxActiveSessions();
+            log.debug("IUO Average Active Sessions={} (límite {})", activeSessions, limit);
+            return activeSessions != null && activeSessions > limit;
+        } catch (Exception e) {
+            disabled = true;
+            log.warn("No fue posible leer V$SYSMETRIC, se desactiva la sonda de salud: {}", e.getMessage());
+            return false;
+        }
+    }
+}
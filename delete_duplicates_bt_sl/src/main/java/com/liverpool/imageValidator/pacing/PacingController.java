@@ -0,0 +1,78 @@
+package com.liverpool.imageValidator.pacing;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+
+// Decide tamaño de bloque y espera entre bloques de DELETE.
+// static: bloque = batchSize y espera fija. adaptive: AIMD sobre la latencia medida
+// (y la sonda de salud): sin presión crece el bloque y baja la espera de forma aditiva;
+// con presión el bloque se reduce y la espera se duplica.
+@Slf4j
+public class PacingController {
+
+    private final String name;
+    private final AppConfig.Pacing config;
+    private final DatabaseHealthProbe healthProbe;
+    private final boolean adaptive;
+
+    private int chunkSize;
+    private long delayMs;
+
+    public PacingController(String name, AppConfig.Pacing config, int batchSize, DatabaseHealthProbe healthProbe) {
+        this.name = name;
+        this.config = config;
+        this.healthProbe = healthProbe;
+        this.adaptive = "adaptive".equalsIgnoreCase(config.getPolicy());
+        if (adaptive) {
+            this.chunkSize = (int) clamp(batchSize, config.getMinChunkSize(), config.getMaxChunkSize());
+            this.delayMs = clamp(config.getInitialDelayMs(), config.getMinDelayMs(), config.getMaxDelayMs());
+        } else {
+            this.chunkSize = batchSize;
+            this.delayMs = config.getStaticDelayMs();
+        }
+        log.info("Pacing [{}] política={} bloque={} espera={}ms", name, config.getPolicy(), chunkSize, delayMs);
+    }
+
+    public synchronized int nextChunkSize() {
+        return chunkSize;
+    }
+
+    public synchronized long currentDelayMs() {
+        return delayMs;
+    }
+
+    public synchronized void afterChunk(int size, long latencyMs) {
+        if (!adaptive) {
+            log.info("Pacing [{}] bloque={} latencia={}ms espera={}ms", name, size, latencyMs, delayMs);
+            return;
+        }
+
+        boolean slow = latencyMs > config.getTargetLatencyMs();
+        boolean pressure = healthProbe.isUnderPressure();
+        if (slow || pressure) {
+            chunkSize = (int) clamp((long) (chunkSize * config.getBackoffFactor()),
+                    config.getMinChunkSize(), config.getMaxChunkSize());
+            delayMs = clamp(Math.max(delayMs * 2, config.getDelayStepMs()), config.getMinDelayMs(), config.getMaxDelayMs());
+        } else {
+            chunkSize = (int) clamp(chunkSize + config.getChunkStep(), config.getMinChunkSize(), config.getMaxChunkSize());
+            delayMs = clamp(delayMs - config.getDelayStepMs(), config.getMinDelayMs(), config.getMaxDelayMs());
+        }
+        log.info("Pacing [{}] bloque={} latencia={}ms lento={} presionBD={} -> siguiente bloque={} espera={}ms",
+                name, size, latencyMs, slow, pressure, chunkSize, delayMs);
+    }
+
+    public void pause() {
+        long wait = currentDelayMs();
+        if (wait <= 0) return;
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            log.error("Thread sleep interrupted", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,22 @@
+package com.liverpool.imageValidator.pacing;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// Un controlador por tabla/pipeline; la sonda de salud es opcional
+@Component
+public class PacingControllerFactory {
+
+    private final AppConfig appConfig;
+    private final DatabaseHealthProbe healthProbe;
+
+    public PacingControllerFactory(AppConfig appConfig, ObjectProvider<DatabaseHealthProbe> healthProbe) {
+        this.appConfig = appConfig;
+        this.healthProbe = healthProbe.getIfAvailable(() -> DatabaseHealthProbe.NONE);
+    }
+
+    public PacingController create(String name) {
+        return new PacingController(name, appConfig.getPacing(), appConfig.getBatchSize(), healthProbe);
+    }
+}
@@ -0,0 +1,128 @@
+package com.liverpool.imageValidator.repository;
+
+import com.liverpool.imageValidator.entity.Inventory;
+import com.liverpool.imageValidator.models.MongoFixupResult;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Actualizaciones server-side del inventario en Mongo: un bulk sin orden por bloque,
+// sin traer documentos y sin reemplazar el arreglo completo.
+@Slf4j
+@Repository
+public class InventoryBulkRepository {
+
+    public static final int CASE_EMPTY_LIST = 0;
+    public static final int CASE_MISSING_ONLINE = 1;
+    public static final int CASE_STALE_ONLINE = 2;
+
+    private final MongoTemplate mongoTemplate;
+
+    public InventoryBulkRepository(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public MongoFixupResult fixOnlineEntries(List<String> skus, boolean perCaseCounts) {
+        if (skus == null || skus.isEmpty()) return new MongoFixupResult();
+
+        List<WriteModel<Document>> models = onlineFixupModels(skus);
+        MongoCollection<Document> collection = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(Inventory.class));
+        BulkWriteOptions unordered = new BulkWriteOptions().ordered(false);
+
+        if (!perCaseCounts) {
+            BulkWriteResult result = collection.bulkWrite(models, unordered);
+            return new MongoFixupResult(-1, -1, -1, result.getMatchedCount(), result.getModifiedCount());
+        }
+
+        // Los filtros son excluyentes, así que cada caso se puede medir por separado
+        long[] modified = new long[models.size()];
+        long matched = 0L;
+        long totalModified = 0L;
+        for (int i = 0; i < models.size(); i++) {
+            BulkWriteResult result = collection.bulkWrite(Collections.singletonList(models.get(i)), unordered);
+            modified[i] = result.getModifiedCount();
+            matched += result.getMatchedCount();
+            totalModified += result.getModifiedCount();
+        }
+        return new MongoFixupResult(modified[CASE_EMPTY_LIST], modified[CASE_MISSING_ONLINE],
+                modified[CASE_STALE_ONLINE], matched, totalModified);
+    }
+
+    // Un modelo por caso, en el orden CASE_EMPTY_LIST, CASE_MISSING_ONLINE, CASE_STALE_ONLINE
+    public static List<WriteModel<Document>> onlineFixupModels(List<String> skus) {
+        Document inSkus = new Document("$in", skus);
+        List<WriteModel<Document>> models = new ArrayList<>(3);
+
+        // Case 2: lista vacía o inexistente -> [{storeId: online, stock: 0}]
+        models.add(new UpdateManyModel<>(
+                new Document("_id", inSkus).append("$or", Arrays.asList(
+                        new Document("inventory", null),
+                        new Document("inventory", new Document("$size", 0)))),
+                new Document("$set", new Document("inventory", Collections.singletonList(onlineEntry())))));
+
+        // Case 3: lista con elementos pero sin entrada online -> se agrega al final
+        models.add(new UpdateManyModel<>(
+                new Document("_id", inSkus)
+                        .append("inventory.0", new Document("$exists", true))
+                        .append("inventory.storeId", new Document("$ne", "online")),
+                new Document("$push", new Document("inventory", onlineEntry()))));
+
+        // Case 4: entrada online con stock distinto de 0 o campos extra -> se reemplaza solo esa entrada
+        models.add(new UpdateManyModel<>(
+                new Document("_id", inSkus)
+                        .append("inventory.storeId", "online")
+                        .append("$expr", staleOnlineExpression()),
+                new Document("$set", new Document("inventory.$[o]", onlineEntry())),
+                new UpdateOptions().arrayFilters(Collections.singletonList(new Document("o.storeId", "online")))));
+
+        return models;
+    }
+
+    // Documentos con alguna entrada online (storeId sin distinguir mayúsculas) que tenga campos
+    // además de storeId y stock; para usar como {$expr: ...}
+    public static Document extraOnlineFieldsExpression() {
+        Document isObject = new Document("$eq", Arrays.asList(new Document("$type", "$$this"), "object"));
+        Document extraFields = new Document("$filter", new Document("input", new Document("$objectToArray", "$$this"))
+                .append("as", "f")
+                .append("cond", new Document("$not", Collections.singletonList(
+                        new Document("$in", Arrays.asList("$$f.k", Arrays.asList("storeId", "stock")))))));
+        Document hasExtra = new Document("$and", Arrays.asList(
+                new Document("$eq", Arrays.asList(new Document("$toLower", "$$this.storeId"), "online")),
+                new Document("$gt", Arrays.asList(new Document("$size", extraFields), 0))));
+        Document anyExtra = new Document("$anyElementTrue", Collections.singletonList(
+                new Document("$map", new Document("input", "$inventory")
+                        .append("in", new Document("$cond", Arrays.asList(isObject, hasExtra, false))))));
+        return new Document("$cond", Arrays.asList(new Document("$isArray", "$inventory"), anyExtra, false));
+    }
+
+    private static Document onlineEntry() {
+        return new Document("storeId", "online").append("stock", 0);
+    }
+
+    private static Document staleOnlineExpression() {
+        Document isObject = new Document("$eq", Arrays.asList(new Document("$type", "$$this"), "object"));
+        Document isStale = new Document("$and", Arrays.asList(
+                new Document("$eq", Arrays.asList("$$this.storeId", "online")),
+                new Document("$or", Arrays.asList(
+                        new Document("$ne", Arrays.asList("$$this.stock", 0)),
+                        new Document("$ne", Arrays.asList(
+                                new Document("$size", new Document("$objectToArray", "$$this")), 2))))));
+        Document anyStale = new Document("$anyElementTrue", Collections.singletonList(
+                new Document("$map", new Document("input", "$inventory")
+                        .append("in", new Document("$cond", Arrays.asList(isObject, isStale, false))))));
+        return new Document("$cond", Arrays.asList(new Document("$isArray", "$inventory"), anyStale, false));
+    }
+}
@@ -2,20 +2,30 @@ package com.liverpool.imageValidator.repository;
 
 import com.liverpool.imageValidator.config.AppConfig;
 import com.liverpool.imageValidator.models.SkusToDeleteDTO;
-import com.liverpool.imageValidator.utils.QuerysDB;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import oracle.jdbc.OracleConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
-import javax.annotation.PostConstruct;
+import java.sql.Array;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 @Repository
 @Slf4j
@@ -25,27 +35,21 @@ public class OracleDBRepository {
     private final JdbcTemplate atgJdbc;
 
     private final AppConfig appConfig;
+    private final SqlShapeRegistry sqlShapes;
 
-    private String atgCataSchema;
-    private String atgCoreSchema;
-    private String iuoSchema;
-
-    @PostConstruct
-    public void init() {
-       this.atgCataSchema = appConfig.getAtgCataSchema();
-       this.atgCoreSchema = appConfig.getAtgCoreSchema();
-       this.iuoSchema = appConfig.getIuoSchema();
-    }
+    private volatile boolean arrayLookupDisabled;
 
     public OracleDBRepository(@Qualifier("iuoJdbcTemplate") JdbcTemplate iuoJdbc,
-                              @Qualifier("atgJdbcTemplate") JdbcTemplate atgJdbc, AppConfig appConfig) {
+                              @Qualifier("atgJdbcTemplate") JdbcTemplate atgJdbc, AppConfig appConfig,
+                              SqlShapeRegistry sqlShapes) {
         this.iuoJdbc = iuoJdbc;
         this.atgJdbc = atgJdbc;
         this.appConfig = appConfig;
+        this.sqlShapes = sqlShapes;
     }
 
     public List<String> findIuoSkus() {
-        String sql = QuerysDB.SELECT_IUO_SKUS.replaceAll("_IUO_SCHE_", this.iuoSchema);
+        String sql = sqlShapes.sql(SqlShapeRegistry.IUO_SKUS);
         //log.info("st: {}", sql);
         return iuoJdbc.query(con -> {
             PreparedStatement ps = con.prepareStatement(sql,
@@ -61,24 +65,78 @@ public class OracleDBRepository {
         });
     }
 
-    public List<String> findIuoSkusManual(List<String> skusArgs) {
-        if (skusArgs == null || skusArgs.isEmpty()) {
-            return Collections.emptyList();
-        }
+    // Recorre el cruce de IUO por páginas de SKU_ID sin materializar la lista completa. Cada página se lee
+    // completa y su cursor se cierra antes de entregarla: el borrado corre en paralelo sobre las mismas
+    // tablas y un cursor abierto toda la corrida termina en ORA-01555 (snapshot too old).
+    public void streamIuoSkus(Consumer<String> sink) {
+        String sql = sqlShapes.sql(SqlShapeRegistry.IUO_SKUS_PAGE);
+        streamPages(sql, new Object[0], sink);
+    }
 
-        String placeholders = skusArgs.stream()
-                .map(s -> "?")
-                .collect(Collectors.joining(","));
+    // Igual que streamIuoSkus, solo los SKUs de la partición hash indicada (0..partitions-1)
+    public void streamIuoSkusPartition(int partitions, int partition, Consumer<String> sink) {
+        String sql = sqlShapes.sql(SqlShapeRegistry.IUO_SKUS_PARTITION_PAGE);
+        streamPages(sql, new Object[]{partitions - 1, partition}, sink);
+    }
 
-        String iuoSkusManual = QuerysDB.SELECT_IUO_SKUS_MANUAL_PREFIX.replaceAll("_IUO_SCHE_", this.iuoSchema);
+    // Las repeticiones de un SKU en el join pueden quedar partidas entre páginas; el pipeline las descarta
+    private void streamPages(String sql, Object[] leadingArgs, Consumer<String> sink) {
+        int pageSize = Math.max(1, appConfig.getIuoPageSize());
+        String after = null;
+        while (true) {
+            Object[] args = Arrays.copyOf(leadingArgs, leadingArgs.length + 3);
+            args[leadingArgs.length] = after;
+            args[leadingArgs.length + 1] = after;
+            args[leadingArgs.length + 2] = pageSize;
+            int[] types = new int[args.length];
+            for (int i = 0; i < leadingArgs.length; i++) {
+                types[i] = Types.INTEGER;
+            }
+            types[leadingArgs.length] = Types.VARCHAR;
+            types[leadingArgs.length + 1] = Types.VARCHAR;
+            types[leadingArgs.length + 2] = Types.INTEGER;
 
-        String sql = iuoSkusManual + placeholders + QuerysDB.SELECT_IUO_SKUS_MANUAL_SUFFIX;
+            List<String> page = iuoJdbc.query(sql, args, types, (rs, rowNum) -> rs.getString(1));
+            page.forEach(sink);
+            if (page.size() < pageSize) return;
+            after = page.get(page.size() - 1);
+        }
+    }
 
-        //log.info("st: {}", sql);
+    // Estimación del cruce ONLINE_INVENTORY x BTVTA_INVENTORY con las estadísticas de la tabla menor;
+    // -1 si no hay estadísticas o no se pueden consultar
+    public long estimateIuoOverlap() {
+        String sql = sqlShapes.sql(SqlShapeRegistry.TABLE_NUM_ROWS);
+        String owner = appConfig.getIuoSchema().toUpperCase();
+        try {
+            long estimate = -1L;
+            for (String table : new String[]{"ONLINE_INVENTORY", "BTVTA_INVENTORY"}) {
+                List<Long> rows = iuoJdbc.queryForList(sql, Long.class, owner, table);
+                if (rows.isEmpty() || rows.get(0) == null) return -1L;
+                estimate = estimate < 0 ? rows.get(0) : Math.min(estimate, rows.get(0));
+            }
+            return estimate;
+        } catch (DataAccessException e) {
+            log.warn("No fue posible estimar el cruce de IUO: {}", e.getMessage());
+            return -1L;
+        }
+    }
 
-        Object[] params = skusArgs.toArray();
+    public List<String> findIuoSkusManual(List<String> skusArgs) {
+        if (skusArgs == null || skusArgs.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        return iuoJdbc.query(sql, params, (rs, rowNum) -> rs.getString("SKU_ID"));
+        // Bloques de a lo más maxInListSize (límite de 1000 expresiones de Oracle)
+        Set<String> found = new LinkedHashSet<>();
+        int max = sqlShapes.maxInListSize();
+        for (int i = 0; i < skusArgs.size(); i += max) {
+            List<String> chunk = skusArgs.subList(i, Math.min(i + max, skusArgs.size()));
+            SqlShapeRegistry.InList query = sqlShapes.inList(SqlShapeRegistry.IUO_SKUS_MANUAL, chunk);
+            //log.info("st: {}", query.getSql());
+            found.addAll(iuoJdbc.query(query.getSql(), query.getArgs(), (rs, rowNum) -> rs.getString("SKU_ID")));
+        }
+        return new ArrayList<>(found);
     }
 
     public List<SkusToDeleteDTO> findValidSkusByBatch(List<String> skusBatch) {
@@ -86,42 +144,179 @@ public class OracleDBRepository {
             return Collections.emptyList();
         }
 
-        String placeholders = skusBatch.stream().map(s -> "?").collect(Collectors.joining(","));
-        String validSkuAtg = QuerysDB.SELECT_VALID_SKUS_PREFIX
-                .replaceAll("_ATG_CATA_", this.atgCataSchema)
-                .replaceAll("_ATG_CORE_", this.atgCoreSchema);
+        List<SkusToDeleteDTO> result = new ArrayList<>();
+        int max = sqlShapes.maxInListSize();
+        for (int i = 0; i < skusBatch.size(); i += max) {
+            List<String> chunk = skusBatch.subList(i, Math.min(i + max, skusBatch.size()));
+            SqlShapeRegistry.InList query = sqlShapes.inList(SqlShapeRegistry.VALID_SKUS, chunk);
+            //log.info("st: {}", query.getSql());
+            result.addAll(atgJdbc.query(query.getSql(), query.getArgs(), (rs, rowNum) ->
+                    new SkusToDeleteDTO(rs.getString("SKU_ID"), rs.getInt("PRODUCT_TYPE"))
+            ));
+        }
+        return result;
+    }
+
+    // Cada corrida vuelve a intentar el arreglo aunque una corrida anterior del proceso haya caído al IN-list
+    public void resetRunState() {
+        arrayLookupDisabled = false;
+    }
 
-        String sql = validSkuAtg + placeholders + QuerysDB.SELECT_VALID_SKUS_SUFFIX;
+    // Tamaño de rebanada por consulta a ATG según el modo configurado
+    public int lookupSliceSize() {
+        String mode = appConfig.getAtgLookup().getMode();
+        if ("inlist".equalsIgnoreCase(mode) || ("array".equalsIgnoreCase(mode) && arrayLookupDisabled)) {
+            return appConfig.getBatchSize();
+        }
+        return appConfig.getAtgLookup().getSliceSize();
+    }
 
-        //log.info("st: {}", sql);
+    // Valida SKUs en ATG con el modo configurado; el IN-list queda como respaldo
+    public void findValidSkus(List<String> skus, Consumer<SkusToDeleteDTO> sink) {
+        if (skus == null || skus.isEmpty()) return;
 
-        Object[] args = skusBatch.toArray(new Object[0]);
+        String mode = appConfig.getAtgLookup().getMode();
+        if ("array".equalsIgnoreCase(mode) && !arrayLookupDisabled) {
+            int[] emitted = new int[1];
+            try {
+                findValidSkusByArray(skus, dto -> {
+                    emitted[0]++;
+                    sink.accept(dto);
+                });
+                return;
+            } catch (DataAccessException e) {
+                if (emitted[0] > 0) throw e;
+                arrayLookupDisabled = true;
+                log.warn("No fue posible usar el arreglo {} en ATG, se usa IN-list: {}",
+                        appConfig.getAtgLookup().getCollectionType(), e.getMessage());
+            }
+        } else if ("staging".equalsIgnoreCase(mode)) {
+            findValidSkusByStaging(skus, sink);
+            return;
+        }
 
-        return atgJdbc.query(sql, args, (rs, rowNum) ->
-                new SkusToDeleteDTO(rs.getString("SKU_ID"), rs.getInt("PRODUCT_TYPE"))
-        );
+        int batchSize = appConfig.getBatchSize();
+        for (int i = 0; i < skus.size(); i += batchSize) {
+            List<String> batch = skus.subList(i, Math.min(i + batchSize, skus.size()));
+            findValidSkusByBatch(batch).forEach(sink);
+        }
+    }
+
+    // Recorre todos los SKUs vigentes de ATG en una sola consulta (sin IN) para el snapshot join
+    public void streamValidSkuSnapshot(ObjIntConsumer<String> sink) {
+        String sql = sqlShapes.sql(SqlShapeRegistry.VALID_SKUS_SNAPSHOT);
+        int fetchSize = appConfig.getAtgLookup().getSnapshotFetchSize();
+        atgJdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(rs.getString(1), rs.getInt(2)));
+    }
+
+    // Un solo round-trip: la rebanada completa se liga como colección de Oracle
+    public void findValidSkusByArray(List<String> skus, Consumer<SkusToDeleteDTO> sink) {
+        atgJdbc.execute((ConnectionCallback<Void>) con -> {
+            Array skuArray = con.unwrap(OracleConnection.class)
+                    .createOracleArray(appConfig.getAtgLookup().getCollectionType(), skus.toArray(new String[0]));
+            try (PreparedStatement ps = con.prepareStatement(sqlShapes.sql(SqlShapeRegistry.VALID_SKUS_ARRAY),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(appConfig.getAtgLookup().getFetchSize());
+                ps.setArray(1, skuArray);
+                readValidSkus(ps, sink);
+            } finally {
+                skuArray.free();
+            }
+            return null;
+        });
+    }
+
+    // Variante portable: carga la rebanada en una tabla temporal y la une en el mismo query.
+    // El rollback final limpia la tabla, no hay cambios sobre datos de ATG.
+    public void findValidSkusByStaging(List<String> skus, Consumer<SkusToDeleteDTO> sink) {
+        atgJdbc.execute((ConnectionCallback<Void>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try {
+                try (PreparedStatement insert = con.prepareStatement(sqlShapes.sql(SqlShapeRegistry.INSERT_STAGING))) {
+                    int pending = 0;
+                    for (String sku : skus) {
+                        insert.setString(1, sku);
+                        insert.addBatch();
+                        if (++pending == 1000) {
+                            insert.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) insert.executeBatch();
+                }
+                try (PreparedStatement ps = con.prepareStatement(sqlShapes.sql(SqlShapeRegistry.VALID_SKUS_STAGING),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(appConfig.getAtgLookup().getFetchSize());
+                    readValidSkus(ps, sink);
+                }
+            } finally {
+                rollbackQuietly(con);
+                con.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private void readValidSkus(PreparedStatement ps, Consumer<SkusToDeleteDTO> sink) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                sink.accept(new SkusToDeleteDTO(rs.getString("SKU_ID"), rs.getInt("PRODUCT_TYPE")));
+            }
+        }
+    }
+
+    private void rollbackQuietly(Connection con) {
+        try {
+            con.rollback();
+        } catch (SQLException e) {
+            log.warn("No fue posible limpiar la tabla de staging: {}", e.getMessage());
+        }
     }
 
     public int deleteIuoBySkusInBatch(List<String> skusBatch, String productType) {
         if (skusBatch == null || skusBatch.isEmpty()) return 0;
 
-        String table;
-        if ("BT".equalsIgnoreCase(productType)) {
-            table = QuerysDB.ONLINE_INVENTORY_TABLE.replaceAll("_IUO_SCHE_", this.iuoSchema);;
-        } else if ("SL".equalsIgnoreCase(productType)) {
-            table = QuerysDB.BTVTA_INVENTORY_TABLE.replaceAll("_IUO_SCHE_", this.iuoSchema);;
-        } else {
-            throw new IllegalArgumentException("productType desconocido: " + productType);
+        String shape = deleteShape(productType, SqlShapeRegistry.DELETE_BT, SqlShapeRegistry.DELETE_SL);
+
+        int deleted = 0;
+        int max = sqlShapes.maxInListSize();
+        for (int i = 0; i < skusBatch.size(); i += max) {
+            List<String> chunk = skusBatch.subList(i, Math.min(i + max, skusBatch.size()));
+            SqlShapeRegistry.InList delete = sqlShapes.inList(shape, chunk);
+            deleted += iuoJdbc.update(delete.getSql(), delete.getArgs());
         }
+        return deleted;
+    }
 
-        String in = buildInClause(skusBatch.size());
-        String sql = "DELETE FROM " + table + " WHERE SKU_ID IN (" + in + ")";
+    // Un DELETE ... WHERE SKU_ID = ? por SKU en un solo batch de JDBC; regresa las filas afectadas por SKU
+    // (Statement.SUCCESS_NO_INFO si el driver no las informa)
+    public int[] deleteIuoBySkus(List<String> skus, String productType) {
+        if (skus == null || skus.isEmpty()) return new int[0];
 
-        Object[] args = skusBatch.toArray(new Object[0]);
-        return iuoJdbc.update(sql, args);
+        String sql = sqlShapes.sql(deleteShape(productType,
+                SqlShapeRegistry.DELETE_BT_BY_SKU, SqlShapeRegistry.DELETE_SL_BY_SKU));
+        return iuoJdbc.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setString(1, skus.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return skus.size();
+            }
+        });
     }
 
-    private String buildInClause(int size) {
-        return IntStream.range(0, size).mapToObj(i -> "?").collect(Collectors.joining(","));
+    private static String deleteShape(String productType, String btShape, String slShape) {
+        if ("BT".equalsIgnoreCase(productType)) return btShape;
+        if ("SL".equalsIgnoreCase(productType)) return slShape;
+        throw new IllegalArgumentException("productType desconocido: " + productType);
     }
 }
@@ -0,0 +1,163 @@
+package com.liverpool.imageValidator.repository;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.utils.QuerysDB;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Textos SQL estables para toda la corrida: los esquemas se resuelven una vez al arrancar
+// y los IN (...) se rellenan a tamaños fijos (buckets), así cada forma se parsea una sola vez
+// en Oracle y se reutiliza desde el cache de statements del driver.
+@Slf4j
+@Component
+public class SqlShapeRegistry {
+
+    public static final String IUO_SKUS = "IUO_SKUS";
+    public static final String IUO_SKUS_PAGE = "IUO_SKUS_PAGE";
+    public static final String IUO_SKUS_PARTITION_PAGE = "IUO_SKUS_PARTITION_PAGE";
+    public static final String IUO_SKUS_MANUAL = "IUO_SKUS_MANUAL";
+    public static final String VALID_SKUS = "VALID_SKUS";
+    public static final String VALID_SKUS_ARRAY = "VALID_SKUS_ARRAY";
+    public static final String VALID_SKUS_STAGING = "VALID_SKUS_STAGING";
+    public static final String VALID_SKUS_SNAPSHOT = "VALID_SKUS_SNAPSHOT";
+    public static final String TABLE_NUM_ROWS = "TABLE_NUM_ROWS";
+    public static final String INSERT_STAGING = "INSERT_STAGING";
+    public static final String DELETE_BT = "DELETE_BT";
+    public static final String DELETE_SL = "DELETE_SL";
+    public static final String DELETE_BT_BY_SKU = "DELETE_BT_BY_SKU";
+    public static final String DELETE_SL_BY_SKU = "DELETE_SL_BY_SKU";
+
+    private final AppConfig appConfig;
+
+    // Sentencias completas sin IN-list
+    private final Map<String, String> statements = new HashMap<>();
+    // Prefijo/sufijo de las sentencias con IN-list
+    private final Map<String, String[]> inListTemplates = new HashMap<>();
+    private final Map<String, String> inListCache = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> usage = new ConcurrentHashMap<>();
+    private int[] buckets;
+
+    public SqlShapeRegistry(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        String iuo = appConfig.getIuoSchema();
+        String cata = appConfig.getAtgCataSchema();
+        String core = appConfig.getAtgCoreSchema();
+        String stagingTable = appConfig.getAtgLookup().getStagingTable();
+
+        String validPrefix = QuerysDB.SELECT_VALID_SKUS_PREFIX.replace("_ATG_CATA_", cata).replace("_ATG_CORE_", core);
+
+        statements.put(IUO_SKUS, QuerysDB.SELECT_IUO_SKUS.replace("_IUO_SCHE_", iuo));
+        statements.put(IUO_SKUS_PAGE, QuerysDB.SELECT_IUO_SKUS_PAGE.replace("_IUO_SCHE_", iuo));
+        statements.put(IUO_SKUS_PARTITION_PAGE, QuerysDB.SELECT_IUO_SKUS_PARTITION_PAGE.replace("_IUO_SCHE_", iuo));
+        statements.put(VALID_SKUS_ARRAY, validPrefix + QuerysDB.VALID_SKUS_ARRAY_FILTER + QuerysDB.SELECT_VALID_SKUS_SUFFIX);
+        statements.put(VALID_SKUS_STAGING, validPrefix
+                + QuerysDB.VALID_SKUS_STAGING_FILTER.replace("_STAGE_TABLE_", stagingTable)
+                + QuerysDB.SELECT_VALID_SKUS_SUFFIX);
+        statements.put(VALID_SKUS_SNAPSHOT, QuerysDB.SELECT_VALID_SKUS_SNAPSHOT
+                .replace("_ATG_CATA_", cata).replace("_ATG_CORE_", core));
+        statements.put(TABLE_NUM_ROWS, QuerysDB.SELECT_TABLE_NUM_ROWS);
+        statements.put(DELETE_BT_BY_SKU, QuerysDB.DELETE_BY_SKU
+                .replace("_TABLE_", QuerysDB.ONLINE_INVENTORY_TABLE.replace("_IUO_SCHE_", iuo)));
+        statements.put(DELETE_SL_BY_SKU, QuerysDB.DELETE_BY_SKU
+                .replace("_TABLE_", QuerysDB.BTVTA_INVENTORY_TABLE.replace("_IUO_SCHE_", iuo)));
+        statements.put(INSERT_STAGING, QuerysDB.INSERT_STAGING_SKU.replace("_STAGE_TABLE_", stagingTable));
+
+        inListTemplates.put(IUO_SKUS_MANUAL, new String[]{
+                QuerysDB.SELECT_IUO_SKUS_MANUAL_PREFIX.replace("_IUO_SCHE_", iuo), QuerysDB.SELECT_IUO_SKUS_MANUAL_SUFFIX});
+        inListTemplates.put(VALID_SKUS, new String[]{validPrefix, QuerysDB.SELECT_VALID_SKUS_SUFFIX});
+        inListTemplates.put(DELETE_BT, new String[]{
+                "DELETE FROM " + QuerysDB.ONLINE_INVENTORY_TABLE.replace("_IUO_SCHE_", iuo) + " WHERE SKU_ID IN (", ")"});
+        inListTemplates.put(DELETE_SL, new String[]{
+                "DELETE FROM " + QuerysDB.BTVTA_INVENTORY_TABLE.replace("_IUO_SCHE_", iuo) + " WHERE SKU_ID IN (", ")"});
+
+        List<Integer> configured = new ArrayList<>(appConfig.getSqlShapes().getBuckets());
+        Collections.sort(configured);
+        this.buckets = configured.stream().mapToInt(Integer::intValue).filter(b -> b > 0 && b <= 1000).toArray();
+        if (this.buckets.length == 0) {
+            this.buckets = new int[]{1000};
+        }
+        log.info("SQL buckets para IN-list: {}", configured);
+    }
+
+    public String sql(String shape) {
+        String sql = statements.get(shape);
+        if (sql == null) throw new IllegalArgumentException("Forma SQL desconocida: " + shape);
+        usage.computeIfAbsent(shape, k -> new AtomicLong()).incrementAndGet();
+        return sql;
+    }
+
+    // Máximo de elementos por IN (...) (Oracle admite hasta 1000)
+    public int maxInListSize() {
+        return buckets[buckets.length - 1];
+    }
+
+    // SQL con el IN rellenado al bucket siguiente; los lugares sobrantes repiten el último valor
+    public InList inList(String shape, List<String> values) {
+        String[] template = inListTemplates.get(shape);
+        if (template == null) throw new IllegalArgumentException("Forma SQL desconocida: " + shape);
+        if (values.isEmpty() || values.size() > maxInListSize()) {
+            throw new IllegalArgumentException("IN-list de " + values.size() + " elementos para " + shape
+                    + " (máximo " + maxInListSize() + ")");
+        }
+
+        int bucket = bucketFor(values.size());
+        String key = shape + "#" + bucket;
+        String sql = inListCache.computeIfAbsent(key, k -> template[0] + placeholders(bucket) + template[1]);
+        usage.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+
+        Object[] args = new Object[bucket];
+        for (int i = 0; i < bucket; i++) {
+            args[i] = values.get(Math.min(i, values.size() - 1));
+        }
+        return new InList(sql, args);
+    }
+
+    private int bucketFor(int size) {
+        for (int bucket : buckets) {
+            if (size <= bucket) return bucket;
+        }
+        return maxInListSize();
+    }
+
+    public static String placeholders(int size) {
+        StringBuilder sb = new StringBuilder(size * 2);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    // Cada texto distinto es un hard parse potencial en Oracle
+    public int distinctShapes() {
+        return usage.size();
+    }
+
+    public void logSummary() {
+        log.info("Formas SQL distintas usadas (hard parses potenciales): {}", distinctShapes());
+        new TreeMap<>(usage).forEach((shape, count) -> log.info("  {} -> {} ejecuciones", shape, count.get()));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class InList {
+        private final String sql;
+        private final Object[] args;
+    }
+}
@@ -0,0 +1,80 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.repository.OracleDBRepository;
+import com.liverpool.imageValidator.utils.LongIntHashMap;
+import com.liverpool.imageValidator.utils.ProductTypeMask;
+import com.liverpool.imageValidator.utils.SkuCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Snapshot join: lee una sola vez todos los SKUs vigentes de ATG a una tabla hash
+// SKU -> tipos de producto y cruza contra ella los SKUs de IUO sin más consultas a ATG.
+@Slf4j
+@Component
+public class AtgSnapshotJoin {
+
+    private final OracleDBRepository oracleDBRepository;
+
+    private LongIntHashMap numericSkus;
+    private Map<String, Integer> otherSkus;
+
+    public AtgSnapshotJoin(OracleDBRepository oracleDBRepository) {
+        this.oracleDBRepository = oracleDBRepository;
+    }
+
+    public List<SkusToDeleteDTO> join(List<String> skus) {
+        ensureLoaded();
+        List<SkusToDeleteDTO> result = new ArrayList<>();
+        for (String sku : skus) {
+            long packed = SkuCodec.pack(sku);
+            int mask;
+            if (packed != SkuCodec.NOT_PACKABLE) {
+                mask = numericSkus.get(packed);
+            } else {
+                Integer value = otherSkus.get(sku);
+                mask = value != null ? value : LongIntHashMap.MISSING;
+            }
+            if (mask == LongIntHashMap.MISSING) continue;
+            ProductTypeMask.expand(sku, mask, result);
+        }
+        return result;
+    }
+
+    // Descarta el snapshot de la corrida anterior; el modo SERVICE corre varias en el mismo proceso
+    public synchronized void reset() {
+        this.numericSkus = null;
+        this.otherSkus = null;
+    }
+
+    // El snapshot se construye una vez por corrida (STREAM lo reutiliza en cada ventana)
+    private synchronized void ensureLoaded() {
+        if (numericSkus != null) return;
+
+        long start = System.currentTimeMillis();
+        LongIntHashMap numeric = new LongIntHashMap(1 << 20);
+        Map<String, Integer> others = new HashMap<>();
+        long[] rows = new long[1];
+        oracleDBRepository.streamValidSkuSnapshot((sku, productType) -> {
+            rows[0]++;
+            if (sku == null) return;
+            long packed = SkuCodec.pack(sku);
+            if (packed != SkuCodec.NOT_PACKABLE) {
+                int current = numeric.get(packed);
+                numeric.put(packed, ProductTypeMask.merge(current == LongIntHashMap.MISSING ? 0 : current, productType));
+            } else {
+                Integer current = others.get(sku);
+                others.put(sku, ProductTypeMask.merge(current == null ? 0 : current, productType));
+            }
+        });
+        this.otherSkus = others;
+        this.numericSkus = numeric;
+        log.info("Snapshot de ATG cargado: filas={} SKUs={} en {}ms", rows[0], numeric.size() + others.size(),
+                System.currentTimeMillis() - start);
+    }
+}
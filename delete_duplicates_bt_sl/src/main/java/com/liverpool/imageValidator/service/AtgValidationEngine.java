@@ -0,0 +1,176 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.cache.SkuValidityCache;
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.metrics.RunMetrics;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.repository.OracleDBRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Validación en ATG en paralelo: config.threads hilos sobre el pool de Hikari de ATG y
+// config.numberBatches lotes en vuelo. Los resultados se unen en el orden de los lotes.
+@Slf4j
+@Component
+public class AtgValidationEngine {
+
+    private final OracleDBRepository oracleDBRepository;
+    private final AppConfig appConfig;
+    private final AtgSnapshotJoin atgSnapshotJoin;
+    private final RunMetrics runMetrics;
+    private final SkuValidityCache skuValidityCache;
+
+    private ExecutorService pool;
+    private int threads;
+
+    public AtgValidationEngine(OracleDBRepository oracleDBRepository, AppConfig appConfig,
+                               AtgSnapshotJoin atgSnapshotJoin, RunMetrics runMetrics,
+                               SkuValidityCache skuValidityCache) {
+        this.oracleDBRepository = oracleDBRepository;
+        this.appConfig = appConfig;
+        this.atgSnapshotJoin = atgSnapshotJoin;
+        this.runMetrics = runMetrics;
+        this.skuValidityCache = skuValidityCache;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.threads = Math.max(1, appConfig.getThreads());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "atg-validation-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Estado de ATG que solo vale para una corrida: snapshot cargado y respaldo del modo array
+    public void resetRunState() {
+        atgSnapshotJoin.reset();
+        oracleDBRepository.resetRunState();
+    }
+
+    // Cantidad de SKUs que conviene juntar para que todos los lotes en vuelo tengan trabajo
+    public int windowSize() {
+        return oracleDBRepository.lookupSliceSize() * inFlight();
+    }
+
+    public List<SkusToDeleteDTO> validate(List<String> skus) {
+        return validate(skus, skus == null ? 0 : skus.size());
+    }
+
+    // expectedTotal: SKUs de IUO esperados en toda la corrida (-1 si no se conoce)
+    public List<SkusToDeleteDTO> validate(List<String> skus, long expectedTotal) {
+        if (skus == null || skus.isEmpty()) return Collections.emptyList();
+
+        if (useSnapshot(expectedTotal)) {
+            long start = System.nanoTime();
+            List<SkusToDeleteDTO> joined = atgSnapshotJoin.join(skus);
+            runMetrics.recordAtgBatch("snapshot", System.nanoTime() - start, skus.size(), joined.size());
+            return joined;
+        }
+
+        // Solo los SKUs sin entrada vigente en la caché local van a ATG
+        SkuValidityCache.Lookup cached = skuValidityCache.lookup(skus);
+        List<String> misses = cached.getMisses();
+        List<SkusToDeleteDTO> fetched = misses.isEmpty() ? Collections.<SkusToDeleteDTO>emptyList() : probe(misses);
+        skuValidityCache.record(misses, fetched);
+        if (skuValidityCache.isWriting()) {
+            runMetrics.recordAtgCache(cached.getHitCount(), misses.size(), cached.getExpiredCount());
+            log.info("Caché de ATG: hits={} misses={} (expirados={}) candidatos desde caché={}",
+                    cached.getHitCount(), misses.size(), cached.getExpiredCount(), cached.getHits().size());
+        }
+        if (cached.getHits().isEmpty()) return fetched;
+
+        List<SkusToDeleteDTO> result = new ArrayList<>(cached.getHits().size() + fetched.size());
+        result.addAll(cached.getHits());
+        result.addAll(fetched);
+        return result;
+    }
+
+    private List<SkusToDeleteDTO> probe(List<String> skus) {
+        int sliceSize = oracleDBRepository.lookupSliceSize();
+        int totalBatches = (skus.size() + sliceSize - 1) / sliceSize;
+        List<SkusToDeleteDTO> result = new ArrayList<>();
+
+        if (threads == 1 || inFlight() == 1 || totalBatches == 1) {
+            for (int b = 0; b < totalBatches; b++) {
+                result.addAll(runBatch(skus, b, sliceSize, totalBatches));
+            }
+            return result;
+        }
+
+        Deque<Future<List<SkusToDeleteDTO>>> window = new ArrayDeque<>();
+        int nextBatch = 0;
+        int mergedBatch = 0;
+        try {
+            while (mergedBatch < totalBatches) {
+                while (window.size() < inFlight() && nextBatch < totalBatches) {
+                    int b = nextBatch++;
+                    window.addLast(pool.submit(() -> runBatch(skus, b, sliceSize, totalBatches)));
+                }
+                result.addAll(await(window.pollFirst(), mergedBatch++, totalBatches));
+            }
+        } finally {
+            window.forEach(f -> f.cancel(true));
+        }
+        return result;
+    }
+
+    private List<SkusToDeleteDTO> runBatch(List<String> skus, int batch, int sliceSize, int totalBatches) {
+        List<String> slice = skus.subList(batch * sliceSize, Math.min((batch + 1) * sliceSize, skus.size()));
+        List<SkusToDeleteDTO> partial = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            oracleDBRepository.findValidSkus(slice, partial::add);
+            runMetrics.recordAtgBatch("probe", System.nanoTime() - start, slice.size(), partial.size());
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Falló la validación en ATG del lote " + (batch + 1) + "/" + totalBatches
+                    + " (SKUs " + slice.get(0) + " .. " + slice.get(slice.size() - 1) + ")", e);
+        }
+        log.debug("Lote ATG {}/{} SKUs={} candidatos={}", batch + 1, totalBatches, slice.size(), partial.size());
+        return partial;
+    }
+
+    private List<SkusToDeleteDTO> await(Future<List<SkusToDeleteDTO>> future, int batch, int totalBatches) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Validación en ATG interrumpida en el lote " + (batch + 1) + "/" + totalBatches, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException("Falló la validación en ATG del lote " + (batch + 1) + "/" + totalBatches, cause);
+        }
+    }
+
+    // probe: consultas por lote; snapshot: un solo barrido de ATG; auto: snapshot a partir de snapshotMinSkus
+    private boolean useSnapshot(long expectedTotal) {
+        String strategy = appConfig.getAtgLookup().getStrategy();
+        if ("snapshot".equalsIgnoreCase(strategy)) return true;
+        return "auto".equalsIgnoreCase(strategy) && expectedTotal >= appConfig.getAtgLookup().getSnapshotMinSkus();
+    }
+
+    private int inFlight() {
+        return Math.max(1, appConfig.getNumberBatches());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,76 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.models.ChunkDeleteResult;
+import com.liverpool.imageValidator.repository.OracleDBRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Borra un bloque en IUO dentro de su propia transacción: los locks y el undo duran lo que
+// dura el bloque, nunca las pausas del pacing. En modo batch usa un DELETE de texto constante
+// por SKU enviado como un solo batch de JDBC.
+@Slf4j
+@Component
+public class ChunkDeleteEngine {
+
+    private static final int MAX_LOGGED_MISSING = 20;
+
+    private final OracleDBRepository oracleDBRepository;
+    private final TransactionTemplate iuoTransactionTemplate;
+    private final AppConfig appConfig;
+
+    public ChunkDeleteEngine(OracleDBRepository oracleDBRepository,
+                             @Qualifier("iuoTransactionTemplate") TransactionTemplate iuoTransactionTemplate,
+                             AppConfig appConfig) {
+        this.oracleDBRepository = oracleDBRepository;
+        this.iuoTransactionTemplate = iuoTransactionTemplate;
+        this.appConfig = appConfig;
+    }
+
+    public ChunkDeleteResult delete(List<String> chunk, String productType) {
+        if (chunk.isEmpty()) return new ChunkDeleteResult(0, Collections.emptyList(), 0, true);
+
+        if ("inlist".equalsIgnoreCase(appConfig.getDelete().getMode())) {
+            Integer deleted = iuoTransactionTemplate.execute(
+                    status -> oracleDBRepository.deleteIuoBySkusInBatch(chunk, productType));
+            return new ChunkDeleteResult(deleted == null ? 0 : deleted, Collections.emptyList(), 0, false);
+        }
+
+        int[] counts = iuoTransactionTemplate.execute(status -> oracleDBRepository.deleteIuoBySkus(chunk, productType));
+        return summarize(chunk, productType, counts);
+    }
+
+    private ChunkDeleteResult summarize(List<String> chunk, String productType, int[] counts) {
+        int deleted = 0;
+        int multiple = 0;
+        boolean known = counts != null && counts.length == chunk.size();
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; known && i < counts.length; i++) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                known = false;
+            } else if (counts[i] == 0) {
+                missing.add(chunk.get(i));
+            } else {
+                deleted += counts[i];
+                if (counts[i] > 1) multiple++;
+            }
+        }
+        if (!known) {
+            log.warn("El driver no informó filas por SKU en el bloque {} de {} SKUs", productType, chunk.size());
+            return new ChunkDeleteResult(ChunkDeleteResult.UNKNOWN_ROWS, Collections.emptyList(), 0, false);
+        }
+        if (!missing.isEmpty()) {
+            log.info("SKUs sin filas en {} ({}): {}{}", productType, missing.size(),
+                    missing.subList(0, Math.min(MAX_LOGGED_MISSING, missing.size())),
+                    missing.size() > MAX_LOGGED_MISSING ? " ..." : "");
+        }
+        return new ChunkDeleteResult(deleted, missing, multiple, true);
+    }
+}
@@ -1,16 +1,25 @@
 package com.liverpool.imageValidator.service;
 
 import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.models.ChunkDeleteResult;
+import com.liverpool.imageValidator.models.MongoFixupResult;
 import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.repository.InventoryBulkRepository;
 import com.liverpool.imageValidator.repository.InventoryRepository;
 import com.liverpool.imageValidator.entity.Inventory;
+import com.liverpool.imageValidator.journal.JournalState;
+import com.liverpool.imageValidator.journal.RunJournal;
+import com.liverpool.imageValidator.metrics.RunMetrics;
+import com.liverpool.imageValidator.pacing.PacingController;
+import com.liverpool.imageValidator.pacing.PacingControllerFactory;
 import com.liverpool.imageValidator.repository.OracleDBRepository;
+import com.liverpool.imageValidator.utils.InventoryDocuments;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -28,45 +37,71 @@ public class DataOracleServiceImpl implements DataOracleService {
     private final OracleDBRepository oracleDBRepository;
     private final AppConfig appConfig;
     private final InventoryRepository inventoryRepository;
-
-    private int batchSize;
-
-    @PostConstruct
-    public void init() {
-        this.batchSize = appConfig.getBatchSize();
-    }
+    private final InventoryBulkRepository inventoryBulkRepository;
+    private final PacingControllerFactory pacingControllerFactory;
+    private final MongoUpdateExecutor mongoUpdateExecutor;
+    private final AtgValidationEngine atgValidationEngine;
+    private final RunJournal runJournal;
+    private final RunMetrics runMetrics;
+    private final ChunkDeleteEngine chunkDeleteEngine;
+    private final DeleteScheduler deleteScheduler;
+    // solo se crea con mongoUpdate.engine=reactive
+    private final ObjectProvider<ReactiveMongoStage> reactiveMongoStage;
+    private final RunCancellation runCancellation;
 
     @Override
     @Transactional(readOnly = true)
     public List<String> getIuoSkus() {
-        return oracleDBRepository.findIuoSkus();
+        long start = System.nanoTime();
+        List<String> skus = oracleDBRepository.findIuoSkus();
+        runMetrics.recordIuoFetch(System.nanoTime() - start, skus.size());
+        return skus;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<String> getIuoSkusManual(List<String> skusArgs) {
-        return oracleDBRepository.findIuoSkusManual(skusArgs);
+        long start = System.nanoTime();
+        List<String> skus = oracleDBRepository.findIuoSkusManual(skusArgs);
+        runMetrics.recordIuoFetch(System.nanoTime() - start, skus.size());
+        return skus;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<SkusToDeleteDTO> getValidSkusToRemove(List<String> skusList) {
         if (skusList == null || skusList.isEmpty()) return Collections.emptyList();
 
-        List<SkusToDeleteDTO> result = new ArrayList<>();
-        for (int i = 0; i < skusList.size(); i += this.batchSize) {
-            int end = Math.min(i + this.batchSize, skusList.size());
-            List<String> batch = skusList.subList(i, end);
-            List<SkusToDeleteDTO> partial = oracleDBRepository.findValidSkusByBatch(batch);
-            if (partial != null && !partial.isEmpty()) {
-                result.addAll(partial);
-            }
-        }
-        return result;
+        return atgValidationEngine.validate(skusList);
+    }
+
+    // Para validar por partes: expectedTotal es el total estimado de la corrida y decide la estrategia
+    public List<SkusToDeleteDTO> getValidSkusToRemove(List<String> skusList, long expectedTotal) {
+        if (skusList == null || skusList.isEmpty()) return Collections.emptyList();
+
+        return atgValidationEngine.validate(skusList, expectedTotal);
+    }
+
+    // BT y SL en paralelo (cada uno sobre su tabla) según DeleteScheduler
+    public long deleteSkusFromFiles(List<String> productTypes) throws Exception {
+        return deleteScheduler.runPerType(productTypes, this::deleteSkusFromFileByType);
+    }
+
+    // Handoff en memoria: las listas clasificadas llegan directo, sin releer los archivos de delete
+    public long deleteSkusInMemory(Map<String, List<String>> skusByType) throws Exception {
+        return deleteScheduler.runPerType(new ArrayList<>(skusByType.keySet()),
+                productType -> deleteSkusByType(skusByType.get(productType), productType));
     }
 
-    @Transactional
+    // Sin transacción envolvente: cada bloque confirma por su cuenta (ChunkDeleteEngine)
     public long deleteSkusFromFileByType(String productType) throws IOException {
+        List<String> skus = readDeleteFile(productType);
+        if (skus == null) return 0L;
+
+        return deleteSkusByType(skus, productType);
+    }
+
+    // Lista a eliminar generada por exportSkuLists; null si el archivo no existe
+    public List<String> readDeleteFile(String productType) throws IOException {
         Path dirDel = Paths.get("files", "deleteDB", "skuList").resolve(productType);
         Path file = productType.equals("BT")
                 ? dirDel.resolve("BigTicket_List_Delete.txt")
@@ -74,51 +109,218 @@ public class DataOracleServiceImpl implements DataOracleService {
 
         if (!Files.exists(file)) {
             log.warn("File to delete not found: {}", file.toAbsolutePath());
-            return 0L;
+            return null;
         }
 
-        List<String> skus = Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+        return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
                 .map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+    }
 
+    public long deleteSkusByType(List<String> skus, String productType) {
         log.info("Total SKUs a eliminar ({}): {}", productType, skus.size());
-        long totalDeleted = 0L;
+        runJournal.plan(productType, skus);
 
         // 🧩 Collect async tasks
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+
+        PacingController pacing = pacingControllerFactory.create(productType);
+        long totalDeleted = deleteRange(skus, 0, skus.size(), productType, futures, pacing);
 
-        for (int i = 0; i < skus.size(); i += this.batchSize) {
-            int end = Math.min(i + this.batchSize, skus.size());
+        awaitMongoUpdates(futures);
+        runJournal.typeDone(productType);
+
+        log.info("Total filas eliminadas ({}): {}", productType, totalDeleted);
+        return totalDeleted;
+    }
+
+    // Elimina skus[from, to) en bloques del tamaño que indique el pacing; los offsets quedan en la bitácora.
+    // Los bloques se encolan en DeleteScheduler con el límite en vuelo de la tabla.
+    private long deleteRange(List<String> skus, int from, int to, String productType,
+                             List<CompletableFuture<Void>> futures, PacingController pacing) {
+        List<CompletableFuture<Integer>> deletes = new ArrayList<>();
+        int block = 0;
+        for (int i = from; i < to; ) {
+            int end = Math.min(i + pacing.nextChunkSize(), to);
             List<String> chunk = skus.subList(i, end);
-            log.info("Eliminando bloque {}/{} SKUs={}", (i / this.batchSize) + 1,
-                    (int) Math.ceil((double) skus.size() / this.batchSize), chunk.size());
+            int offset = i;
+            log.info("Eliminando bloque {} ({}) SKUs={} avance={}/{}", ++block, productType, chunk.size(), end, skus.size());
 
-            int deleted = oracleDBRepository.deleteIuoBySkusInBatch(chunk, productType);
-            totalDeleted += deleted;
-            log.info("SKUs eliminados del bloque: {}", deleted);
+            CompletableFuture<Integer> delete = deleteScheduler.submitChunk(productType,
+                    () -> deleteChunk(chunk, offset, productType, futures, pacing), end < to ? pacing : null,
+                    () -> runCancellation.isRequested() || DeleteScheduler.anyFailed(deletes));
+            if (delete == null) {
+                log.error("Falló o se canceló un bloque de {}; no se encolan más bloques", productType);
+                break;
+            }
+            deletes.add(delete);
+            i = end;
+        }
+        // los bloques en vuelo terminan (y quedan en la bitácora) antes de reportar la cancelación
+        long deleted = DeleteScheduler.sum(deletes);
+        runCancellation.throwIfRequested();
+        return deleted;
+    }
 
-            try {
-                Thread.sleep(120000);
-            } catch (InterruptedException e) {
-                log.error("Thread sleep interrupted", e);
-                Thread.currentThread().interrupt();
+    // Reanuda la fase de borrado de una corrida interrumpida a partir de la bitácora
+    public long resumeFromJournal() throws Exception {
+        JournalState state = runJournal.load();
+        if (state == null) {
+            log.warn("No hay bitácora en {}; nada que reanudar", runJournal.path().toAbsolutePath());
+            return 0L;
+        }
+        if (state.isFinished()) {
+            log.info("La última corrida ({}) terminó completa; nada que reanudar", state.getMode());
+            return 0L;
+        }
+
+        runJournal.resumeRun();
+        long totalDeleted = deleteScheduler.runPerType(Arrays.asList("BT", "SL"), productType -> {
+            JournalState.TypeState typeState = state.getTypes().get(productType);
+            if (typeState == null) {
+                // la corrida cayó antes de planear este tipo: se procesa completo
+                return deleteSkusFromFileByType(productType);
             }
+            if (typeState.isDone()) {
+                log.info("RESUME ({}): ya terminado en la corrida anterior", productType);
+                return 0L;
+            }
+            return resumeType(typeState);
+        });
+        runJournal.finishRun();
+        log.info("RESUME terminado. Total filas eliminadas: {}", totalDeleted);
+        return totalDeleted;
+    }
 
-            // 🔄 Add async task to list
-            futures.add(CompletableFuture.runAsync(() -> updateMongoAfterDeletion(chunk)));
+    private long resumeType(JournalState.TypeState typeState) throws IOException {
+        String productType = typeState.getProductType();
+        List<String> skus = readDeleteFile(productType);
+        if (skus == null || skus.size() != typeState.getTotal()
+                || !RunJournal.fingerprint(skus).equals(typeState.getFingerprint())) {
+            throw new IllegalStateException("El archivo a eliminar de " + productType
+                    + " no coincide con el de la corrida interrumpida; ejecuta FULL de nuevo");
         }
 
-        // ✅ Wait for all async tasks before exiting
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        log.info("✅ All Mongo updates completed before exiting");
+        List<int[]> mongoPending = typeState.pendingMongoChunks();
+        List<int[]> oraclePending = typeState.pendingOracleRanges();
+        int remaining = 0;
+        for (int[] range : oraclePending) {
+            remaining += range[1] - range[0];
+        }
+        log.info("RESUME ({}): bloques confirmados={} Mongo pendientes={} SKUs por eliminar={}/{}", productType,
+                typeState.getCommitted().size(), mongoPending.size(), remaining, skus.size());
+
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        for (int[] range : mongoPending) {
+            submitMongoUpdate(skus.subList(range[0], range[1]), range[0], productType, futures);
+        }
+
+        PacingController pacing = pacingControllerFactory.create(productType);
+        long totalDeleted = 0L;
+        for (int i = 0; i < oraclePending.size(); i++) {
+            int[] range = oraclePending.get(i);
+            totalDeleted += deleteRange(skus, range[0], range[1], productType, futures, pacing);
+            if (i < oraclePending.size() - 1) {
+                pacing.pause();
+            }
+        }
 
+        awaitMongoUpdates(futures);
+        runJournal.typeDone(productType);
         log.info("Total filas eliminadas ({}): {}", productType, totalDeleted);
         return totalDeleted;
     }
 
-    private void updateMongoAfterDeletion(List<String> chunk) {
+    // Bloque fuera de una lista planeada (modo STREAM): no se registra en la bitácora
+    public int deleteChunk(List<String> chunk, String productType, List<CompletableFuture<Void>> futures,
+                           PacingController pacing) {
+        runCancellation.throwIfRequested();
+        return deleteChunk(chunk, -1, productType, futures, pacing);
+    }
+
+    // Elimina un bloque en IUO, informa la latencia al pacing y encola su actualización en Mongo
+    private int deleteChunk(List<String> chunk, int offset, String productType,
+                            List<CompletableFuture<Void>> futures, PacingController pacing) {
+        long start = System.nanoTime();
+        ChunkDeleteResult result = deleteScheduler.withIuoWriteSlot(() -> chunkDeleteEngine.delete(chunk, productType));
+        int deleted = result.getDeletedRows();
+        long elapsed = System.nanoTime() - start;
+        long latencyMs = elapsed / 1_000_000L;
+        runMetrics.recordOracleChunk(productType, elapsed, chunk.size(), deleted);
+        if (result.isPerSkuCounts()) {
+            runMetrics.recordOracleSkusWithoutRows(productType, result.getSkusWithoutRows().size());
+            log.info("SKUs eliminados del bloque: {} (sin filas={}, con varias filas={})", deleted,
+                    result.getSkusWithoutRows().size(), result.getSkusWithMultipleRows());
+        } else if (!result.isRowCountKnown()) {
+            log.info("Bloque eliminado: {} SKUs (el driver no informó filas)", chunk.size());
+        } else {
+            log.info("SKUs eliminados del bloque: {}", deleted);
+        }
+        pacing.afterChunk(chunk.size(), latencyMs);
+        if (offset >= 0) {
+            runJournal.oracleCommitted(productType, offset, chunk.size(), deleted);
+        }
+
+        submitMongoUpdate(chunk, offset, productType, futures);
+        // los totales suman solo filas conocidas; las desconocidas quedan en oracle.skus.unknown.rows
+        return Math.max(deleted, 0);
+    }
+
+    private void submitMongoUpdate(List<String> chunk, int offset, String productType,
+                                   List<CompletableFuture<Void>> futures) {
+        // 🔄 Add async task to list
+        futures.add(mongoUpdateExecutor.submit(productType, chunk, () -> {
+            long start = System.nanoTime();
+            try {
+                updateMongoAfterDeletion(chunk, productType);
+            } catch (RuntimeException e) {
+                runMetrics.recordMongoFailure(productType, chunk.size());
+                throw e;
+            }
+            runMetrics.recordMongoChunk(productType, System.nanoTime() - start, chunk.size());
+            if (offset >= 0) {
+                runJournal.mongoDone(productType, offset, chunk.size());
+            }
+        }));
+    }
+
+    public void awaitMongoUpdates(List<CompletableFuture<Void>> futures) {
+        // ✅ Wait for all async tasks before exiting
+        mongoUpdateExecutor.awaitAll(futures);
+        log.info("✅ All Mongo updates completed before exiting");
+    }
+
+    private void updateMongoAfterDeletion(List<String> chunk, String productType) {
         log.info("🚀 Mongo update thread started for chunk size={} (Thread: {})", chunk.size(), Thread.currentThread().getName());
 
+        if ("reactive".equalsIgnoreCase(appConfig.getMongoUpdate().getEngine())) {
+            // el hilo del executor solo espera; las operaciones corren en el driver reactivo
+            Long modified = reactiveMongoStage.getObject().fixOnlineEntries(chunk).block();
+            log.info("Mongo reactive chunk size={} mode={}: modified={}", chunk.size(),
+                    appConfig.getMongoUpdate().getMode(), modified);
+            return;
+        }
+
+        if ("document".equalsIgnoreCase(appConfig.getMongoUpdate().getMode())) {
+            updateMongoPerDocument(chunk, productType);
+            return;
+        }
+
+        MongoFixupResult result = inventoryBulkRepository.fixOnlineEntries(chunk,
+                appConfig.getMongoUpdate().isPerCaseCounts());
+        if (appConfig.getMongoUpdate().isPerCaseCounts()) {
+            log.info("Mongo bulk chunk size={}: Case 2={} Case 3={} Case 4={} untouched={}", chunk.size(),
+                    result.getEmptyList(), result.getMissingOnline(), result.getStaleOnline(),
+                    chunk.size() - result.getMatched());
+        } else {
+            log.info("Mongo bulk chunk size={}: matched={} modified={} untouched={}", chunk.size(),
+                    result.getMatched(), result.getModified(), chunk.size() - result.getMatched());
+        }
+    }
+
+    // Implementación previa: findById + save por SKU
+    private void updateMongoPerDocument(List<String> chunk, String productType) {
         for (String sku : chunk) {
+            long start = System.nanoTime();
             Optional<Inventory> optionalInventory = inventoryRepository.findById(sku);
 
             if (!optionalInventory.isPresent()) {
@@ -127,53 +329,15 @@ public class DataOracleServiceImpl implements DataOracleService {
             }
 
             Inventory inventoryDoc = optionalInventory.get();
-            List<Object> inventoryList = inventoryDoc.getInventory();
-
-            if (inventoryList == null || inventoryList.isEmpty()) {
-                // Case 2
-                inventoryList = new ArrayList<>();
-                Map<String, Object> onlineStore = new HashMap<>();
-                onlineStore.put("storeId", "online");
-                onlineStore.put("stock", 0);
-                inventoryList.add(onlineStore);
-                inventoryDoc.setInventory(inventoryList);
-                inventoryRepository.save(inventoryDoc);
+            int fixCase = InventoryDocuments.fixOnlineEntry(inventoryDoc);
+            inventoryRepository.save(inventoryDoc);
+            runMetrics.recordMongoDocument(productType, System.nanoTime() - start);
+            if (fixCase == InventoryBulkRepository.CASE_EMPTY_LIST) {
                 log.info("Initialized empty inventory list and added online storeId for SKU {} (Case 2)", sku);
+            } else if (fixCase == InventoryBulkRepository.CASE_STALE_ONLINE) {
+                log.info("Cleaned extra fields from online storeId for SKU {} (Case 4 updated)", sku);
             } else {
-                boolean hasOnline = inventoryList.stream()
-                        .filter(item -> item instanceof Map)
-                        .anyMatch(item -> "online".equals(((Map<?, ?>) item).get("storeId")));
-                if (hasOnline) {
-                    // Clean only the online entry, removing extra fields but keep others unchanged
-                    List<Object> cleanedList = new ArrayList<>();
-                    for (Object item : inventoryList) {
-                        if (item instanceof Map) {
-                            Map<?, ?> mapItem = (Map<?, ?>) item;
-                            Object storeId = mapItem.get("storeId");
-                            if ("online".equals(storeId)) {
-                                Map<String, Object> cleanedOnline = new HashMap<>();
-                                cleanedOnline.put("storeId", "online");
-                                cleanedOnline.put("stock", 0);
-                                cleanedList.add(cleanedOnline);
-                            } else {
-                                cleanedList.add(item);
-                            }
-                        } else {
-                            cleanedList.add(item);
-                        }
-                    }
-                    inventoryDoc.setInventory(cleanedList);
-                    inventoryRepository.save(inventoryDoc);
-                    log.info("Cleaned extra fields from online storeId for SKU {} (Case 4 updated)", sku);
-                } else {
-                    Map<String, Object> onlineStore = new HashMap<>();
-                    onlineStore.put("storeId", "online");
-                    onlineStore.put("stock", 0);
-                    inventoryList.add(onlineStore);
-                    inventoryDoc.setInventory(inventoryList);
-                    inventoryRepository.save(inventoryDoc);
-                    log.info("➕ Appended online storeId to inventory list for SKU {} (Case 3)", sku);
-                }
+                log.info("➕ Appended online storeId to inventory list for SKU {} (Case 3)", sku);
             }
         }
     }
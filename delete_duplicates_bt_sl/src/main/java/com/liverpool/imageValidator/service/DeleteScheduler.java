@@ -0,0 +1,178 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.pacing.PacingController;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Corre los pipelines de borrado BT y SL en paralelo (tablas distintas en IUO).
+// Cada tabla tiene su límite de bloques en vuelo y su pacing; todas comparten un tope
+// global de conexiones de escritura a IUO.
+@Slf4j
+@Component
+public class DeleteScheduler {
+
+    private final AppConfig appConfig;
+    private final Map<String, Semaphore> tableSlots = new ConcurrentHashMap<>();
+
+    private Semaphore iuoWriteSlots;
+    private ExecutorService pool;
+
+    @FunctionalInterface
+    public interface TypeTask {
+        long run(String productType) throws Exception;
+    }
+
+    public DeleteScheduler(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        int maxWrites = Math.max(1, appConfig.getScheduler().getMaxIuoWriteConnections());
+        this.iuoWriteSlots = new Semaphore(maxWrites, true);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "iuo-delete-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("Delete scheduler: concurrentTypes={} inFlight={} maxIuoWriteConnections={}",
+                appConfig.getScheduler().isConcurrentTypes(), appConfig.getScheduler().getInFlight(), maxWrites);
+    }
+
+    // Ejecuta la tarea de cada tipo; en paralelo si scheduler.concurrentTypes. Espera a todas
+    // antes de reportar errores para no dejar un pipeline corriendo a medias.
+    public long runPerType(List<String> productTypes, TypeTask task) throws Exception {
+        if (!appConfig.getScheduler().isConcurrentTypes() || productTypes.size() < 2) {
+            long total = 0L;
+            for (String productType : productTypes) {
+                total += task.run(productType);
+            }
+            return total;
+        }
+
+        List<CompletableFuture<Long>> pipelines = new ArrayList<>();
+        for (String productType : productTypes) {
+            pipelines.add(CompletableFuture.supplyAsync(() -> {
+                String previous = Thread.currentThread().getName();
+                Thread.currentThread().setName("delete-" + productType);
+                try {
+                    return task.run(productType);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    Thread.currentThread().setName(previous);
+                }
+            }, pool));
+        }
+        return sum(pipelines);
+    }
+
+    // Encola un bloque de la tabla: bloquea al llamador mientras la tabla tenga su cupo lleno.
+    // El cupo se libera después de la pausa del pacing, así con inFlight=1 el orden es
+    // borrar, pausar, siguiente bloque (igual que el loop secuencial).
+    // Devuelve null sin encolar si stop es true al obtener el cupo: el cupo se libera hasta que el
+    // future del bloque anterior ya está completo, así un fallo se ve antes de arrancar el siguiente.
+    public CompletableFuture<Integer> submitChunk(String productType, Supplier<Integer> delete,
+                                                  PacingController pauseAfter, BooleanSupplier stop) {
+        Semaphore slots = tableSlots(productType);
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrumpido esperando cupo de borrado en " + productType);
+        }
+        try {
+            if (stop.getAsBoolean()) {
+                slots.release();
+                return null;
+            }
+            CompletableFuture<Integer> chunk = CompletableFuture.supplyAsync(() -> {
+                int deleted = delete.get();
+                if (pauseAfter != null) {
+                    pauseAfter.pause();
+                }
+                return deleted;
+            }, pool);
+            chunk.whenComplete((deleted, error) -> slots.release());
+            return chunk;
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    // Limita las escrituras simultáneas a IUO sin importar de qué pipeline vengan
+    public <T> T withIuoWriteSlot(Supplier<T> write) {
+        try {
+            iuoWriteSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrumpido esperando conexión de escritura a IUO");
+        }
+        try {
+            return write.get();
+        } finally {
+            iuoWriteSlots.release();
+        }
+    }
+
+    public static boolean anyFailed(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            if (future.isCompletedExceptionally()) return true;
+        }
+        return false;
+    }
+
+    // Espera todos los resultados y suma; si alguno falló lanza el primero con los demás como suppressed
+    public static long sum(List<? extends CompletableFuture<? extends Number>> futures) {
+        long total = 0L;
+        RuntimeException failure = null;
+        for (CompletableFuture<? extends Number> future : futures) {
+            try {
+                total += future.join().longValue();
+            } catch (CompletionException | CancellationException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : e.getCause() != null ? new IllegalStateException(e.getCause()) : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) throw failure;
+        return total;
+    }
+
+    private Semaphore tableSlots(String productType) {
+        return tableSlots.computeIfAbsent(productType, type -> {
+            Integer configured = appConfig.getScheduler().getInFlight().get(type);
+            return new Semaphore(Math.max(1, configured == null ? 1 : configured));
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
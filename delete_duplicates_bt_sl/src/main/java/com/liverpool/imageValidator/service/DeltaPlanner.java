@@ -0,0 +1,117 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.delta.DeltaState;
+import com.liverpool.imageValidator.delta.DeltaStateStore;
+import com.liverpool.imageValidator.models.SkuClassification;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.utils.LongIntHashMap;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Modo DELTA: a partir del estado de la corrida anterior decide qué SKUs del cruce IUO
+// se vuelven a validar en ATG. Se revalidan los nuevos, los que quedaron como candidatos
+// (siguen en IUO, así que su borrado no se completó) y los no candidatos con validación vencida.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeltaPlanner {
+
+    private final DeltaStateStore deltaStateStore;
+    private final AppConfig appConfig;
+    private final SkuClassificationEngine skuClassificationEngine;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Plan {
+        private final boolean full;
+        private final List<String> overlap;
+        private final List<String> toValidate;
+        private final DeltaState previous;
+        private final int today;
+    }
+
+    public Plan full(List<String> overlap) {
+        return new Plan(true, overlap, overlap, null, today());
+    }
+
+    public Plan delta(List<String> overlap) {
+        int today = today();
+        DeltaState previous = deltaStateStore.load();
+        if (previous == null) {
+            log.info("DELTA sin estado previo: se valida el cruce completo");
+            return full(overlap);
+        }
+        int fullEveryDays = appConfig.getDelta().getFullEveryDays();
+        if (fullEveryDays > 0 && today - previous.getLastFullEpochDay() >= fullEveryDays) {
+            log.info("DELTA: último FULL hace {} días, se hace reconciliación completa",
+                    today - previous.getLastFullEpochDay());
+            return full(overlap);
+        }
+
+        int revalidateAfterDays = appConfig.getDelta().getRevalidateAfterDays();
+        List<String> toValidate = new ArrayList<>();
+        int added = 0;
+        int pending = 0;
+        int expired = 0;
+        for (String sku : overlap) {
+            int value = previous.get(sku);
+            if (value == LongIntHashMap.MISSING) {
+                added++;
+            } else if (DeltaState.outcome(value) != DeltaState.NOT_CANDIDATE) {
+                pending++;
+            } else if (revalidateAfterDays > 0 && today - DeltaState.epochDay(value) >= revalidateAfterDays) {
+                expired++;
+            } else {
+                continue;
+            }
+            toValidate.add(sku);
+        }
+        log.info("DELTA: cruce IUO={} nuevos={} candidatos previos={} vencidos={} a validar={}",
+                overlap.size(), added, pending, expired, toValidate.size());
+        return new Plan(false, overlap, toValidate, previous, today);
+    }
+
+    // Guarda el resultado de la validación; los SKUs no revalidados conservan su valor anterior
+    // y los que ya no están en el cruce se descartan
+    public void record(Plan plan, List<SkusToDeleteDTO> valid) throws IOException {
+        int today = plan.getToday();
+        DeltaState state = new DeltaState(plan.getOverlap().size(),
+                plan.isFull() ? today : plan.getPrevious().getLastFullEpochDay());
+
+        for (String sku : plan.getToValidate()) {
+            state.put(sku, DeltaState.NOT_CANDIDATE, today);
+        }
+        SkuClassification classification = skuClassificationEngine.classify(valid);
+        putAll(state, classification.getBt().asList(), DeltaState.BT, today);
+        putAll(state, classification.getSl().asList(), DeltaState.SL, today);
+        putAll(state, classification.getOthers().asList(), DeltaState.OTHERS, today);
+
+        if (!plan.isFull()) {
+            for (String sku : plan.getOverlap()) {
+                if (state.get(sku) == LongIntHashMap.MISSING) {
+                    state.putValue(sku, plan.getPrevious().get(sku));
+                }
+            }
+        }
+        deltaStateStore.save(state);
+    }
+
+    private static void putAll(DeltaState state, List<String> skus, int outcome, int today) {
+        for (String sku : skus) {
+            state.put(sku, outcome, today);
+        }
+    }
+
+    private static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+}
@@ -0,0 +1,272 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.utils.ProductTypeMask;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+// Clasificación BT / SL / Others fuera del heap para listas de candidatos muy grandes. Las filas se
+// acumulan por SKU (máscara de ProductTypeMask) hasta runSize SKUs, se ordenan y se escriben como
+// corridas en disco; al final un merge de k vías junta cada SKU, aplica las reglas de
+// SkuClassificationEngine y escribe las tres listas en flujo. Orden de String.compareTo, el mismo de
+// Collections.sort y de SkuCodec, así los archivos salen idénticos a los del camino en memoria.
+@Slf4j
+public class ExternalSkuClassifier implements Closeable {
+
+    private final Path dir;
+    private final int runSize;
+    private final int fanIn;
+    private final List<Path> runs = new ArrayList<>();
+    private Map<String, Integer> pending;
+    private int runCounter;
+
+    // Filas recibidas por tipo antes de mover duplicados
+    private long btRows;
+    private long slRows;
+    private long othersRows;
+
+    public ExternalSkuClassifier(Path spillDir, int runSize, int fanIn) throws IOException {
+        Files.createDirectories(spillDir);
+        this.dir = Files.createTempDirectory(spillDir, "classify-");
+        this.runSize = Math.max(1, runSize);
+        this.fanIn = Math.max(2, fanIn);
+        this.pending = new HashMap<>(Math.min(this.runSize, 1 << 20) * 2);
+    }
+
+    // Archivo de trabajo dentro del directorio temporal (se borra en close)
+    public Path workFile(String name) {
+        return dir.resolve(name);
+    }
+
+    public void addAll(List<SkusToDeleteDTO> rows) throws IOException {
+        for (SkusToDeleteDTO row : rows) {
+            add(row.getSkuId(), row.getProductType());
+        }
+    }
+
+    public void add(String sku, int productType) throws IOException {
+        if (productType == 0) {
+            btRows++;
+        } else if (productType == 1) {
+            slRows++;
+        } else {
+            othersRows++;
+        }
+        Integer current = pending.get(sku);
+        pending.put(sku, ProductTypeMask.merge(current == null ? 0 : current, productType));
+        if (pending.size() >= runSize) {
+            spill();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final long btRows;
+        private final long slRows;
+        private final long othersRows;
+        private final long duplicated;
+        private final long bt;
+        private final long sl;
+        private final long others;
+        private final int runs;
+    }
+
+    // Junta las corridas y escribe las listas finales (una línea por SKU, como SortedSkuList.writeLines)
+    public Result finish(Path btFile, Path slFile, Path othersFile) throws IOException {
+        spill();
+        int totalRuns = runs.size();
+        List<Path> level = new ArrayList<>(runs);
+        while (level.size() > fanIn) {
+            // más corridas que archivos abiertos permitidos: se juntan por grupos en corridas intermedias
+            List<Path> next = new ArrayList<>();
+            for (int from = 0; from < level.size(); from += fanIn) {
+                List<Path> group = level.subList(from, Math.min(from + fanIn, level.size()));
+                if (group.size() == 1) {
+                    next.add(group.get(0));
+                    continue;
+                }
+                Path merged = nextRunFile();
+                try (Merger merger = new Merger(group);
+                     DataOutputStream out = openRun(merged)) {
+                    while (merger.next()) {
+                        writeRecord(out, merger.sku, merger.mask);
+                    }
+                }
+                for (Path run : group) {
+                    Files.deleteIfExists(run);
+                }
+                next.add(merged);
+            }
+            level = next;
+        }
+
+        long duplicated = 0L;
+        long bt = 0L;
+        long sl = 0L;
+        long others = 0L;
+        String lineSeparator = System.lineSeparator();
+        try (Merger merger = new Merger(level);
+             BufferedWriter btWriter = Files.newBufferedWriter(btFile, StandardCharsets.UTF_8);
+             BufferedWriter slWriter = Files.newBufferedWriter(slFile, StandardCharsets.UTF_8);
+             BufferedWriter othersWriter = Files.newBufferedWriter(othersFile, StandardCharsets.UTF_8)) {
+            while (merger.next()) {
+                boolean inBt = ProductTypeMask.isBt(merger.mask);
+                boolean inSl = ProductTypeMask.isSl(merger.mask);
+                Writer target;
+                if (inBt && inSl) duplicated++;
+                if (ProductTypeMask.isOther(merger.mask) || (inBt && inSl)) {
+                    target = othersWriter;
+                    others++;
+                } else if (inBt) {
+                    target = btWriter;
+                    bt++;
+                } else {
+                    target = slWriter;
+                    sl++;
+                }
+                target.write(merger.sku);
+                target.write(lineSeparator);
+            }
+        }
+        return new Result(btRows, slRows, othersRows, duplicated, bt, sl, others, totalRuns);
+    }
+
+    private void spill() throws IOException {
+        if (pending.isEmpty()) return;
+        String[] skus = pending.keySet().toArray(new String[0]);
+        Arrays.sort(skus);
+        Path run = nextRunFile();
+        try (DataOutputStream out = openRun(run)) {
+            for (String sku : skus) {
+                writeRecord(out, sku, pending.get(sku));
+            }
+        }
+        runs.add(run);
+        log.debug("Corrida de clasificación {} escrita: {} SKUs", run.getFileName(), skus.length);
+        pending = new HashMap<>(Math.min(runSize, 1 << 20) * 2);
+    }
+
+    private Path nextRunFile() {
+        return dir.resolve("run-" + (runCounter++) + ".bin");
+    }
+
+    private static DataOutputStream openRun(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    }
+
+    // Registro: máscara (1 byte) y SKU (writeUTF); el fin de archivo cae siempre antes de una máscara
+    private static void writeRecord(DataOutputStream out, String sku, int mask) throws IOException {
+        out.writeByte(mask);
+        out.writeUTF(sku);
+    }
+
+    private static final class RunReader implements Closeable {
+
+        private final DataInputStream in;
+        private String sku;
+        private int mask;
+
+        private RunReader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        }
+
+        private boolean advance() throws IOException {
+            int next = in.read();
+            if (next < 0) return false;
+            mask = next;
+            sku = in.readUTF();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // Merge de k vías: cada next() deja en sku/mask un SKU con la máscara combinada de todas las corridas
+    private static final class Merger implements Closeable {
+
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heap =
+                new PriorityQueue<>((a, b) -> a.sku.compareTo(b.sku));
+        private String sku;
+        private int mask;
+
+        private Merger(List<Path> files) throws IOException {
+            try {
+                for (Path file : files) {
+                    RunReader reader = new RunReader(file);
+                    readers.add(reader);
+                    if (reader.advance()) {
+                        heap.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private boolean next() throws IOException {
+            RunReader head = heap.poll();
+            if (head == null) return false;
+            sku = head.sku;
+            mask = head.mask;
+            if (head.advance()) heap.add(head);
+            while (!heap.isEmpty() && heap.peek().sku.equals(sku)) {
+                RunReader same = heap.poll();
+                mask |= same.mask;
+                if (same.advance()) heap.add(same);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException error = null;
+            for (RunReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            if (error != null) throw error;
+        }
+    }
+
+    // Borra las corridas y el directorio temporal
+    @Override
+    public void close() throws IOException {
+        pending = new HashMap<>();
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,129 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.repository.OracleDBRepository;
+import com.liverpool.imageValidator.utils.SkuDeduplicator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Entrada manual grande (modo FILE): lee SKUs de un archivo o de stdin ("-") en flujo, descarta
+// repetidos, consulta IUO por bloques con varios bloques en vuelo y entrega al pipeline solo los
+// SKUs que existen en IUO, en el orden de lectura. En memoria quedan a lo más parallelism bloques.
+@Slf4j
+@Component
+public class FileSkuSource {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[,;\\s]+");
+
+    private final OracleDBRepository oracleDBRepository;
+    private final AppConfig appConfig;
+
+    private ExecutorService pool;
+
+    public FileSkuSource(OracleDBRepository oracleDBRepository, AppConfig appConfig) {
+        this.oracleDBRepository = oracleDBRepository;
+        this.appConfig = appConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(parallelism(), r -> {
+            Thread t = new Thread(r, "iuo-file-lookup-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void emit(String path, Consumer<String> sink) throws IOException {
+        boolean stdin = "-".equals(path);
+        log.info("Leyendo SKUs de {}", stdin ? "stdin" : Paths.get(path).toAbsolutePath());
+        int chunkSize = Math.max(1, appConfig.getFileInput().getChunkSize());
+        SkuDeduplicator deduplicator = new SkuDeduplicator();
+        Deque<Future<List<String>>> window = new ArrayDeque<>();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        long tokens = 0L;
+        long found = 0L;
+        int chunks = 0;
+
+        try (BufferedReader reader = stdin
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String sku : SEPARATORS.split(line)) {
+                    if (sku.isEmpty()) continue;
+                    tokens++;
+                    if (!deduplicator.add(sku)) continue;
+                    chunk.add(sku);
+                    if (chunk.size() < chunkSize) continue;
+
+                    if (window.size() >= parallelism()) {
+                        found += drain(window.pollFirst(), sink);
+                    }
+                    window.addLast(submit(chunk));
+                    chunk = new ArrayList<>(chunkSize);
+                    if (++chunks % 100 == 0) {
+                        log.info("Archivo: {} SKUs leídos, {} únicos, {} encontrados en IUO", tokens, deduplicator.size(), found);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                window.addLast(submit(chunk));
+            }
+            while (!window.isEmpty()) {
+                found += drain(window.pollFirst(), sink);
+            }
+        } finally {
+            window.forEach(f -> f.cancel(true));
+        }
+        log.info("Archivo leído: {} SKUs, {} únicos, {} encontrados en IUO", tokens, deduplicator.size(), found);
+    }
+
+    private Future<List<String>> submit(List<String> chunk) {
+        return pool.submit(() -> oracleDBRepository.findIuoSkusManual(chunk));
+    }
+
+    private static int drain(Future<List<String>> future, Consumer<String> sink) {
+        List<String> skus;
+        try {
+            skus = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lectura de IUO interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la consulta de IUO de un bloque del archivo", e.getCause());
+        }
+        skus.forEach(sink);
+        return skus.size();
+    }
+
+    private int parallelism() {
+        return Math.max(1, appConfig.getFileInput().getParallelism());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -1,63 +1,175 @@
 package com.liverpool.imageValidator.service;
 
+import com.liverpool.imageValidator.config.AppConfig;
 import com.liverpool.imageValidator.entity.Inventory;
-import com.liverpool.imageValidator.repository.InventoryRepository;
+import com.liverpool.imageValidator.metrics.RunMetrics;
+import com.liverpool.imageValidator.repository.InventoryBulkRepository;
+import com.liverpool.imageValidator.utils.InventoryDocuments;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Limpieza de las entradas online del inventario: lee por lotes con $in y proyección sobre
+// "inventory" y escribe un bulk sin orden por lote, tocando solo los documentos que cambian.
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class InventoryCleanupService {
 
-    @Autowired
-    private InventoryRepository inventoryRepository;
+    private static final String METRIC_TYPE = "CLEANUP";
 
-    public void cleanInventoryFields(List<String> skusSoftLine) {
-        for (String sku : skusSoftLine) {
+    private final MongoTemplate mongoTemplate;
+    private final AppConfig appConfig;
+    private final RunMetrics runMetrics;
+    // solo se crea con cleanup.engine=reactive
+    private final ObjectProvider<ReactiveMongoStage> reactiveMongoStage;
+
+    // Limpia una lista de SKUs dada
+    public long cleanInventoryFields(List<String> skus) {
+        int batchSize = Math.max(1, appConfig.getCleanup().getBatchSize());
+        if (isReactive()) {
+            Flux<Inventory> docs = Flux.fromIterable(skus)
+                    .buffer(batchSize)
+                    .concatMap(batch -> reactiveMongoStage.getObject().find(byIds(batch)));
+            return cleanReactive(docs, "SKUs=" + skus.size());
+        }
+        long modified = 0L;
+        for (int from = 0; from < skus.size(); from += batchSize) {
+            List<String> batch = skus.subList(from, Math.min(from + batchSize, skus.size()));
             try {
-                Optional<Inventory> optionalInventory = inventoryRepository.findById(sku);
-                if (optionalInventory.isPresent()) {
-                    Inventory inventoryDoc = optionalInventory.get();
-                    List<Object> originalInventory = inventoryDoc.getInventory();
-                    List<Object> updatedInventory = new ArrayList<>();
-
-                    for (Object obj : originalInventory) {
-                        if (obj instanceof Map) {
-                            Map<String, Object> inv = (Map<String, Object>) obj;
-
-                            // ✅ Only clean entries where storeId == "online"
-                            Object storeId = inv.get("storeId");
-                            if ("online".equalsIgnoreCase(String.valueOf(storeId))) {
-                                Map<String, Object> cleaned = new HashMap<>();
-                                cleaned.put("storeId", storeId);
-                                if (inv.containsKey("stock")) {
-                                    cleaned.put("stock", inv.get("stock"));
-                                }
-                                updatedInventory.add(cleaned);
-                            } else {
-                                // keep all fields as is for physical stores
-                                updatedInventory.add(inv);
-                            }
-                        }
-                    }
-
-                    inventoryDoc.setInventory(updatedInventory);
-
-                    // 🧾 Log before saving the document
-                    log.info("💾 About to save cleaned inventory document for SKU {}: {}", sku, inventoryDoc);
-
-                    inventoryRepository.save(inventoryDoc);
-
-                    log.info("✅ Cleaned SKU (only 'online' entries): {}", sku);
-                } else {
-                    log.info("⚠️ SKU not found: {}", sku);
+                List<Inventory> docs = mongoTemplate.find(byIds(batch), Inventory.class);
+                if (docs.size() < batch.size()) {
+                    log.info("⚠️ {} of {} SKUs not found in batch starting at {}", batch.size() - docs.size(), batch.size(), batch.get(0));
                 }
+                modified += cleanBatch(docs);
             } catch (Exception e) {
-                log.error("❌ Error cleaning SKU {}: {}", sku, e.getMessage(), e);
+                log.error("❌ Error cleaning batch of {} SKUs starting at {}: {}", batch.size(), batch.get(0), e.getMessage(), e);
+                runMetrics.recordMongoFailure(METRIC_TYPE, batch.size());
+            }
+        }
+        log.info("✅ Cleanup finished: SKUs={} documents modified={}", skus.size(), modified);
+        return modified;
+    }
+
+    // Recorre toda la colección con un cursor, filtrando en el servidor los documentos cuya entrada
+    // online tiene campos extra; no necesita lista de SKUs
+    public long cleanAll() {
+        int batchSize = Math.max(1, appConfig.getCleanup().getBatchSize());
+        Query query = withExtraOnlineFields();
+        if (isReactive()) {
+            return cleanReactive(reactiveMongoStage.getObject().find(query), "full collection");
+        }
+
+        long scanned = 0L;
+        long modified = 0L;
+        List<Inventory> batch = new ArrayList<>(batchSize);
+        try (CloseableIterator<Inventory> cursor = mongoTemplate.stream(query, Inventory.class)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    scanned += batch.size();
+                    modified += cleanBatch(batch);
+                    batch.clear();
+                    log.info("🧹 Cleanup progress: documents={} modified={}", scanned, modified);
+                }
             }
+            scanned += batch.size();
+            modified += cleanBatch(batch);
+        }
+        log.info("✅ Cleanup (full collection) finished: documents={} modified={}", scanned, modified);
+        return modified;
+    }
+
+    private long cleanReactive(Flux<Inventory> docs, String scope) {
+        long start = System.nanoTime();
+        AtomicLong scanned = new AtomicLong();
+        Long modified = reactiveMongoStage.getObject().clean(docs, scanned).block();
+        long total = modified == null ? 0L : modified;
+        runMetrics.recordMongoChunk(METRIC_TYPE, System.nanoTime() - start, (int) scanned.get());
+        log.info("✅ Cleanup (reactive, {}) finished: documents={} modified={}", scope, scanned.get(), total);
+        return total;
+    }
+
+    private boolean isReactive() {
+        return "reactive".equalsIgnoreCase(appConfig.getCleanup().getEngine());
+    }
+
+    private static Query byIds(List<String> skus) {
+        Query query = new Query(Criteria.where("_id").in(skus));
+        query.fields().include("inventory");
+        // ReactiveMongoStage.find retoma por _id tras un error transitorio
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        return query;
+    }
+
+    private Query withExtraOnlineFields() {
+        Query query = new BasicQuery(new Document("$expr", InventoryBulkRepository.extraOnlineFieldsExpression()),
+                new Document("inventory", 1));
+        // por _id: las actualizaciones no mueven el documento dentro del recorrido
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.cursorBatchSize(Math.max(1, appConfig.getCleanup().getCursorBatchSize()));
+        return query;
+    }
+
+    private long cleanBatch(List<Inventory> docs) {
+        if (docs.isEmpty()) return 0L;
+        long start = System.nanoTime();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class);
+        int updates = 0;
+        for (Inventory doc : docs) {
+            Update update = cleanupUpdate(doc.getInventory());
+            if (update != null) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(doc.get_id())), update);
+                updates++;
+            }
+        }
+        long modified = 0L;
+        if (updates > 0) {
+            BulkWriteResult result = bulk.execute();
+            modified = result.getModifiedCount();
+        }
+        runMetrics.recordMongoChunk(METRIC_TYPE, System.nanoTime() - start, docs.size());
+        log.debug("Cleanup batch: documents={} updates={} modified={}", docs.size(), updates, modified);
+        return modified;
+    }
+
+    // null si ninguna entrada online tiene campos extra. Con una sola entrada online se reemplaza solo
+    // esa entrada (arrayFilters); si hay varias, se reescribe el arreglo como antes.
+    @SuppressWarnings("unchecked")
+    static Update cleanupUpdate(List<Object> inventory) {
+        if (inventory == null) return null;
+        Map<String, Object> online = null;
+        int onlineCount = 0;
+        boolean dirty = false;
+        for (Object item : inventory) {
+            if (item instanceof Map && InventoryDocuments.isOnline((Map<?, ?>) item)) {
+                Map<String, Object> entry = (Map<String, Object>) item;
+                online = entry;
+                onlineCount++;
+                dirty |= entry.size() > InventoryDocuments.cleanOnlineEntry(entry).size();
+            }
+        }
+        if (!dirty) return null;
+        if (onlineCount > 1) {
+            return new Update().set("inventory", InventoryDocuments.cleanOnlineEntries(inventory));
         }
+        return new Update()
+                .set("inventory.$[o]", InventoryDocuments.cleanOnlineEntry(online))
+                .filterArray("o.storeId", online.get("storeId"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.models.Job;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cola de jobs del modo SERVICE. Los pools (Hikari, Mongo) y el JIT quedan calientes entre jobs,
+// así una corrida manual de pocos SKUs no paga el arranque del proceso.
+// Solo existe en modo SERVICE: DeletteDuplicatesApplication activa SERVICE_PROPERTY al arrancar con SERVICE.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = JobService.SERVICE_PROPERTY, havingValue = "true")
+public class JobService {
+
+    public static final String SERVICE_PROPERTY = "service.enabled";
+
+    private final RunService runService;
+    private final AppConfig appConfig;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    private ThreadPoolExecutor pool;
+
+    public JobService(RunService runService, AppConfig appConfig) {
+        this.runService = runService;
+        this.appConfig = appConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        String token = appConfig.getJobs().getToken();
+        if (token == null || token.trim().isEmpty()) {
+            throw new IllegalStateException("El modo SERVICE necesita config.jobs.token (variable JOBS_TOKEN)");
+        }
+        int workers = Math.max(1, appConfig.getJobs().getMaxConcurrentJobs());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, appConfig.getJobs().getQueueCapacity())), r -> {
+                    Thread t = new Thread(r, "job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    // Lanza RejectedExecutionException si la cola está llena
+    public Job submit(String mode, List<String> skus, String path, String runId) {
+        List<String> args = toArgs(mode, skus, path, runId);
+        Job job = new Job(UUID.randomUUID().toString(), args);
+        synchronized (jobs) {
+            job.setFuture(pool.submit(() -> execute(job)));
+            jobs.put(job.getId(), job);
+            evictFinished();
+        }
+        log.info("Job {} encolado: {}", job.getId(), summary(args));
+        return job;
+    }
+
+    // Comparación en tiempo constante con config.jobs.token
+    public boolean isAuthorized(String token) {
+        if (token == null) return false;
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                appConfig.getJobs().getToken().trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Job get(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    public List<Job> list() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    // En cola se descarta; en ejecución se interrumpe y la corrida se detiene en la siguiente etapa
+    // o en el siguiente bloque de borrado (los bloques en vuelo terminan)
+    public Job cancel(String id) {
+        Job job = get(id);
+        if (job == null || job.isFinished()) return job;
+        job.setCancelRequested(true);
+        if (job.getFuture().cancel(job.getStatus() == Job.Status.RUNNING) && job.getStatus() == Job.Status.QUEUED) {
+            finish(job, Job.Status.CANCELLED, null);
+        }
+        log.info("Job {} cancelación solicitada (estado {})", id, job.getStatus());
+        return job;
+    }
+
+    private void execute(Job job) {
+        if (job.isCancelRequested()) return;
+        job.setStartedAt(Instant.now());
+        job.setStatus(Job.Status.RUNNING);
+        log.info("Job {} iniciado: {}", job.getId(), summary(job.getArgs()));
+        try {
+            runService.execute(job.getArgs().toArray(new String[0]), job::setStage, job::isCancelRequested);
+            // la corrida terminó completa: una cancelación que llegó tarde no cambia el resultado
+            Thread.interrupted();
+            finish(job, Job.Status.SUCCEEDED, null);
+        } catch (CancellationException | InterruptedException e) {
+            finish(job, Job.Status.CANCELLED, e.getMessage());
+        } catch (Exception e) {
+            log.error("Job {} falló: {}", job.getId(), e.getMessage(), e);
+            finish(job, job.isCancelRequested() ? Job.Status.CANCELLED : Job.Status.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(Job job, Job.Status status, String error) {
+        job.setFinishedAt(Instant.now());
+        job.setError(error);
+        job.setStatus(status);
+        log.info("Job {} terminó: {} en {}ms", job.getId(), status, job.getElapsedMs());
+    }
+
+    private List<String> toArgs(String mode, List<String> skus, String path, String runId) {
+        String joined = skus == null ? "" : String.join(",", skus);
+        List<String> args = new ArrayList<>(2);
+        if (mode == null || mode.trim().isEmpty() || "MANUAL".equalsIgnoreCase(mode.trim())) {
+            if (joined.trim().isEmpty()) {
+                throw new IllegalArgumentException("Un job manual necesita al menos un SKU");
+            }
+            args.add(joined);
+            return args;
+        }
+        String normalized = mode.trim().toUpperCase();
+        if (!RunService.KNOWN_MODES.contains(normalized)) {
+            throw new IllegalArgumentException("Modo no soportado: " + mode);
+        }
+        args.add(normalized);
+        if ("FILE".equals(normalized)) {
+            // el proceso no tiene stdin en modo SERVICE
+            if (path == null || path.trim().isEmpty() || "-".equals(path.trim())) {
+                throw new IllegalArgumentException("Un job FILE necesita la ruta del archivo en 'path'");
+            }
+            args.add(inputFile(path.trim()).toString());
+            return args;
+        }
+        if ("SHARD".equals(normalized)) {
+            if (runId == null || runId.trim().isEmpty()) {
+                throw new IllegalArgumentException("Un job SHARD necesita el runId compartido por las instancias en 'runId'");
+            }
+            args.add(runId.trim());
+            return args;
+        }
+        if (!joined.isEmpty()) {
+            args.add(joined);
+        }
+        return args;
+    }
+
+    // La ruta de un job FILE se resuelve dentro de fileInput.inputDir; no se aceptan rutas que salgan
+    // de él (absolutas, con .. o por un enlace simbólico)
+    private Path inputFile(String path) {
+        Path inputDir = Paths.get(appConfig.getFileInput().getInputDir()).toAbsolutePath().normalize();
+        Path file = inputDir.resolve(path).normalize();
+        try {
+            if (file.startsWith(inputDir) && (!Files.exists(file) || file.toRealPath().startsWith(inputDir.toRealPath()))) {
+                return file;
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo resolver la ruta " + path + ": " + e.getMessage());
+        }
+        throw new IllegalArgumentException("La ruta de un job FILE debe estar dentro de " + inputDir);
+    }
+
+    // Conserva a lo más retainedJobs; descarta primero los terminados más antiguos
+    private void evictFinished() {
+        int excess = jobs.size() - Math.max(1, appConfig.getJobs().getRetainedJobs());
+        Iterator<Job> it = jobs.values().iterator();
+        while (excess > 0 && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+                excess--;
+            }
+        }
+    }
+
+    private static String summary(List<String> args) {
+        String first = args.get(0);
+        return args.size() == 1 && first.length() > 80 ? first.substring(0, 80) + "..." : String.join(" ", args);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
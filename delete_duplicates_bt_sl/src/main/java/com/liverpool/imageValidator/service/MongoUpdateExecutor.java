@@ -0,0 +1,123 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool dedicado para las actualizaciones de Mongo posteriores al DELETE.
+// Los permisos (workers + cola) bloquean al loop de Oracle cuando Mongo se atrasa.
+@Slf4j
+@Component
+public class MongoUpdateExecutor {
+
+    private final AppConfig appConfig;
+
+    private ExecutorService pool;
+    private Semaphore slots;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public MongoUpdateExecutor(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        int workers = appConfig.getMongoUpdate().getWorkers() > 0
+                ? appConfig.getMongoUpdate().getWorkers()
+                : Math.max(1, appConfig.getThreads());
+        int queueCapacity = Math.max(0, appConfig.getMongoUpdate().getQueueCapacity());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "mongo-update-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.slots = new Semaphore(workers + queueCapacity);
+        log.info("Mongo update executor: workers={} queueCapacity={}", workers, queueCapacity);
+    }
+
+    // Bloquea al llamador mientras no haya lugar en el pool ni en la cola
+    public CompletableFuture<Void> submit(String productType, List<String> chunk, Runnable task) {
+        String chunkId = productType + "-" + sequence.incrementAndGet();
+        try {
+            if (!slots.tryAcquire()) {
+                log.info("⏳ Mongo is behind, waiting for a free slot before chunk {}", chunkId);
+                slots.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for Mongo slot (chunk " + chunkId + ")");
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> future;
+        try {
+            future = CompletableFuture.runAsync(task, pool);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+        return future.whenComplete((ignored, error) -> {
+            slots.release();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+            if (error == null) {
+                completed.incrementAndGet();
+                log.info("✅ Mongo chunk {} completed size={} in {}ms", chunkId, chunk.size(), elapsedMs);
+            } else {
+                failed.incrementAndGet();
+                log.error("❌ Mongo chunk {} failed size={} first SKU={}: {}", chunkId, chunk.size(),
+                        chunk.isEmpty() ? "-" : chunk.get(0), error.getMessage(), error);
+            }
+        });
+    }
+
+    // Espera todos los bloques (sin cortar en el primer error) y reporta los fallidos
+    public void awaitAll(List<CompletableFuture<Void>> futures) {
+        List<Throwable> errors = new ArrayList<>();
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (Exception e) {
+                errors.add(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        log.info("Mongo chunks: completed={} failed={}", completed.get(), failed.get());
+        if (!errors.isEmpty()) {
+            IllegalStateException ex = new IllegalStateException(errors.size() + " Mongo chunks failed");
+            errors.forEach(ex::addSuppressed);
+            throw ex;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(appConfig.getMongoUpdate().getShutdownTimeoutSeconds(), TimeUnit.SECONDS)) {
+                log.warn("Mongo update executor did not finish in time, forcing shutdown");
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.entity.Inventory;
+import com.liverpool.imageValidator.repository.InventoryBulkRepository;
+import com.liverpool.imageValidator.utils.InventoryDocuments;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+// Etapa de Mongo sobre el driver reactivo: las escrituras se agrupan en bulks de flushSize y
+// se mantienen a lo más maxInFlight operaciones en vuelo por pipeline, sin un hilo por operación.
+// Los updates son idempotentes (filtros por estado y $set), así que se reintentan ante errores transitorios.
+// Perezoso: el cliente reactivo (y su pool) se crea solo si mongoUpdate.engine o cleanup.engine es reactive;
+// la autoconfiguración reactiva de Spring Boot está excluida en DeletteDuplicatesApplication.
+@Slf4j
+@Lazy
+@Component
+public class ReactiveMongoStage {
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final MongoClient mongoClient;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final AppConfig appConfig;
+
+    // Misma URI y base que el cliente bloqueante (spring.data.mongodb)
+    public ReactiveMongoStage(MongoProperties mongoProperties, AppConfig appConfig) {
+        this.mongoClient = MongoClients.create(mongoProperties.determineUri());
+        this.reactiveMongoTemplate = new ReactiveMongoTemplate(mongoClient, mongoProperties.getMongoClientDatabase());
+        this.appConfig = appConfig;
+        log.info("Cliente reactivo de Mongo creado (base {})", mongoProperties.getMongoClientDatabase());
+    }
+
+    @PreDestroy
+    public void close() {
+        mongoClient.close();
+    }
+
+    // Mismos casos que updateMongoAfterDeletion. bulk: filtros server-side de InventoryBulkRepository por lote;
+    // document: lectura por SKU, fixOnlineEntry en memoria y escritura agrupada. Regresa los modificados.
+    public Mono<Long> fixOnlineEntries(List<String> skus) {
+        AppConfig.ReactiveMongo cfg = appConfig.getReactiveMongo();
+        if (!"document".equalsIgnoreCase(appConfig.getMongoUpdate().getMode())) {
+            return collection().flatMap(collection -> Flux.fromIterable(skus)
+                    .buffer(cfg.getFlushSize())
+                    .flatMap(batch -> write(collection, InventoryBulkRepository.onlineFixupModels(batch)), cfg.getMaxInFlight())
+                    .reduce(0L, Long::sum));
+        }
+
+        AtomicLong found = new AtomicLong();
+        return collection().flatMap(collection -> Flux.fromIterable(skus)
+                .flatMap(sku -> reactiveMongoTemplate.findById(sku, Inventory.class).retryWhen(retry()), cfg.getMaxInFlight())
+                .map(doc -> {
+                    found.incrementAndGet();
+                    InventoryDocuments.fixOnlineEntry(doc);
+                    return (WriteModel<Document>) new UpdateOneModel<Document>(new Document("_id", doc.get_id()),
+                            new Document("$set", new Document("inventory", doc.getInventory())));
+                })
+                .buffer(cfg.getFlushSize())
+                .flatMap(models -> write(collection, models), cfg.getMaxInFlight())
+                .reduce(0L, Long::sum)
+                .doOnSuccess(modified -> {
+                    if (found.get() < skus.size()) {
+                        log.warn("⚠️ {} SKUs not found in Mongo. Skipped.", skus.size() - found.get());
+                    }
+                }));
+    }
+
+    // Documentos a limpiar (InventoryCleanupService.cleanupUpdate) en bulks sin orden; regresa los modificados
+    public Mono<Long> clean(Flux<Inventory> docs, AtomicLong scanned) {
+        AppConfig.ReactiveMongo cfg = appConfig.getReactiveMongo();
+        return collection().flatMap(collection -> docs
+                .doOnNext(doc -> scanned.incrementAndGet())
+                .<WriteModel<Document>>handle((doc, sink) -> {
+                    Update update = InventoryCleanupService.cleanupUpdate(doc.getInventory());
+                    if (update != null) {
+                        sink.next(toModel(doc.get_id(), update));
+                    }
+                })
+                .buffer(cfg.getFlushSize())
+                .flatMap(models -> write(collection, models), cfg.getMaxInFlight())
+                .reduce(0L, Long::sum));
+    }
+
+    // La consulta debe ir ordenada por _id: ante un error transitorio el cursor se reabre después del
+    // último _id recibido, así no se vuelve a recorrer, actualizar ni contar lo ya procesado
+    public Flux<Inventory> find(Query query) {
+        AtomicReference<String> lastId = new AtomicReference<>();
+        return Flux.defer(() -> reactiveMongoTemplate.find(resumeAfter(query, lastId.get()), Inventory.class))
+                .doOnNext(doc -> lastId.set(doc.get_id()))
+                .retryWhen(retry());
+    }
+
+    static Query resumeAfter(Query query, String lastId) {
+        if (lastId == null) return query;
+        Document filter = new Document("$and", Arrays.asList(query.getQueryObject(),
+                new Document("_id", new Document("$gt", lastId))));
+        Query resumed = new BasicQuery(filter, query.getFieldsObject());
+        resumed.with(Sort.by(Sort.Direction.ASC, "_id"));
+        Integer batchSize = query.getMeta().getCursorBatchSize();
+        if (batchSize != null) {
+            resumed.cursorBatchSize(batchSize);
+        }
+        return resumed;
+    }
+
+    private Mono<Long> write(MongoCollection<Document> collection, List<WriteModel<Document>> models) {
+        return Mono.from(collection.bulkWrite(models, UNORDERED))
+                .map(result -> (long) result.getModifiedCount())
+                .retryWhen(retry());
+    }
+
+    private Mono<MongoCollection<Document>> collection() {
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Inventory.class));
+    }
+
+    private Retry retry() {
+        AppConfig.ReactiveMongo cfg = appConfig.getReactiveMongo();
+        return Retry.backoff(cfg.getMaxRetries(), Duration.ofMillis(cfg.getRetryBackoffMs()))
+                .filter(ReactiveMongoStage::isTransient)
+                .doBeforeRetry(signal -> log.warn("🔁 Mongo retry #{} after transient error: {}",
+                        signal.totalRetries() + 1, signal.failure().getMessage()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    // Red, elección de primario o etiquetas de reintento del servidor (también envueltos por Spring)
+    static boolean isTransient(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof MongoSocketException || t instanceof MongoTimeoutException
+                    || t instanceof MongoNotPrimaryException || t instanceof MongoNodeIsRecoveringException) {
+                return true;
+            }
+            if (t instanceof MongoException && (((MongoException) t).hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                    || ((MongoException) t).hasErrorLabel("RetryableWriteError"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static WriteModel<Document> toModel(String id, Update update) {
+        UpdateOptions options = new UpdateOptions();
+        if (update.hasArrayFilters()) {
+            options.arrayFilters(update.getArrayFilters().stream()
+                    .map(UpdateDefinition.ArrayFilter::asDocument)
+                    .collect(Collectors.toList()));
+        }
+        return new UpdateOneModel<>(new Document("_id", id), update.getUpdateObject(), options);
+    }
+}
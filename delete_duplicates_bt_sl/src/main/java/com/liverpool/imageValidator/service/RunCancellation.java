@@ -0,0 +1,34 @@
+package com.liverpool.imageValidator.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+// Cancelación de la corrida en curso (modo SERVICE). Los bloques de borrado corren en los hilos de
+// DeleteScheduler, así que interrumpir el hilo del job no los alcanza: revisan esta bandera.
+@Component
+public class RunCancellation {
+
+    private static final BooleanSupplier NOT_REQUESTED = () -> false;
+
+    private volatile BooleanSupplier requested = NOT_REQUESTED;
+
+    public void begin(BooleanSupplier requested) {
+        this.requested = requested;
+    }
+
+    public void end() {
+        this.requested = NOT_REQUESTED;
+    }
+
+    public boolean isRequested() {
+        return requested.getAsBoolean();
+    }
+
+    public void throwIfRequested() {
+        if (isRequested()) {
+            throw new CancellationException("Corrida cancelada");
+        }
+    }
+}
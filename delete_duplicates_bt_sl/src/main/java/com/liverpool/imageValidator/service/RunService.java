@@ -0,0 +1,314 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.history.HistoryArchive;
+import com.liverpool.imageValidator.journal.RunJournal;
+import com.liverpool.imageValidator.metrics.RunMetrics;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.repository.SqlShapeRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Una corrida completa a partir de los argumentos de línea de comandos. La usan el CommandLineRunner
+// (una corrida por proceso) y el modo SERVICE (una corrida por job).
+@Slf4j
+@Service
+public class RunService {
+
+    public static final List<String> KNOWN_MODES = Arrays.asList("FULL", "STREAM", "RESUME", "DELTA", "LOOKUP", "CLEANUP", "FILE", "SHARD");
+
+    private final DataOracleServiceImpl dataOracleService;
+    private final SkuExportService skuExportService;
+    private final InventoryCleanupService inventoryCleanupService;
+    private final StreamingPipelineService streamingPipelineService;
+    private final SqlShapeRegistry sqlShapeRegistry;
+    private final RunJournal runJournal;
+    private final DeltaPlanner deltaPlanner;
+    private final RunMetrics runMetrics;
+    private final AppConfig appConfig;
+    private final HistoryArchive historyArchive;
+    private final FileSkuSource fileSkuSource;
+    private final ShardedPipelineService shardedPipelineService;
+    private final AtgValidationEngine atgValidationEngine;
+    private final RunCancellation runCancellation;
+
+    // La bitácora, los archivos de delete y el reporte de métricas son únicos por proceso:
+    // solo una corrida a la vez (LOOKUP es de solo lectura y no lo toma)
+    private final ReentrantLock runLock = new ReentrantLock(true);
+
+    // @Lazy: con el perfil fast (lazy-initialization) cada modo crea solo lo que usa;
+    // LOOKUP no levanta Oracle ni Mongo y CLEANUP no levanta Oracle
+    public RunService(@Lazy DataOracleServiceImpl dataOracleService,
+                      @Lazy SkuExportService skuExportService,
+                      @Lazy InventoryCleanupService inventoryCleanupService,
+                      @Lazy StreamingPipelineService streamingPipelineService,
+                      SqlShapeRegistry sqlShapeRegistry,
+                      RunJournal runJournal,
+                      @Lazy DeltaPlanner deltaPlanner,
+                      RunMetrics runMetrics,
+                      AppConfig appConfig,
+                      HistoryArchive historyArchive,
+                      @Lazy FileSkuSource fileSkuSource,
+                      @Lazy ShardedPipelineService shardedPipelineService,
+                      @Lazy AtgValidationEngine atgValidationEngine,
+                      RunCancellation runCancellation) {
+        this.dataOracleService = dataOracleService;
+        this.skuExportService = skuExportService;
+        this.inventoryCleanupService = inventoryCleanupService;
+        this.streamingPipelineService = streamingPipelineService;
+        this.sqlShapeRegistry = sqlShapeRegistry;
+        this.runJournal = runJournal;
+        this.deltaPlanner = deltaPlanner;
+        this.runMetrics = runMetrics;
+        this.appConfig = appConfig;
+        this.historyArchive = historyArchive;
+        this.fileSkuSource = fileSkuSource;
+        this.shardedPipelineService = shardedPipelineService;
+        this.atgValidationEngine = atgValidationEngine;
+        this.runCancellation = runCancellation;
+    }
+
+    public void execute(String... args) throws Exception {
+        execute(args, stage -> { });
+    }
+
+    public void execute(String[] args, Consumer<String> progress) throws Exception {
+        execute(args, progress, () -> false);
+    }
+
+    // cancelRequested: el job pidió cancelar; lo revisan las etapas y cada bloque de borrado
+    public void execute(String[] args, Consumer<String> progress, BooleanSupplier cancelRequested) throws Exception {
+        if (args == null || args.length == 0) {
+            log.error("No se proporcionaron argumentos. Debes usar:");
+            log.error("  java -jar app.jar FULL");
+            log.error("  o");
+            log.error("  java -jar app.jar STREAM");
+            log.error("  o");
+            log.error("  java -jar app.jar RESUME");
+            log.error("  o");
+            log.error("  java -jar app.jar DELTA");
+            log.error("  o");
+            log.error("  java -jar app.jar LOOKUP sku1,sku2");
+            log.error("  o");
+            log.error("  java -jar app.jar CLEANUP [sku1,sku2]");
+            log.error("  o");
+            log.error("  java -jar app.jar FILE skus.txt   (o FILE - para leer de stdin)");
+            log.error("  o");
+            log.error("  java -jar app.jar SHARD runId   (mismo runId en todas las instancias)");
+            log.error("  o");
+            log.error("  java -jar app.jar SERVICE");
+            log.error("  o");
+            log.error("  java -jar app.jar sku1,sku2,sku3");
+            return;
+        }
+        String mode = args[0].toUpperCase();
+
+        if ("LOOKUP".equals(mode)) {
+            lookup(args);
+            return;
+        }
+
+        runLock.lockInterruptibly();
+        runMetrics.startRun();
+        runCancellation.begin(cancelRequested);
+        try {
+            run(args, progress);
+        } finally {
+            runCancellation.end();
+            this.sqlShapeRegistry.logSummary();
+            this.runMetrics.writeReport(modeOf(args[0]));
+            runLock.unlock();
+        }
+    }
+
+    private void run(String[] args, Consumer<String> progress) throws Exception {
+        List<String> skusList;
+        DeltaPlanner.Plan deltaPlan = null;
+        String mode = args[0].toUpperCase();
+
+        // RESUME y CLEANUP no consultan ATG (y así no se crea el motor con el perfil fast)
+        if (!"RESUME".equals(mode) && !"CLEANUP".equals(mode)) {
+            this.atgValidationEngine.resetRunState();
+        }
+
+        if ("STREAM".equals(mode)) {
+            // FULL en flujo: valida, clasifica y elimina conforme se leen los SKUs de IUO
+            progress.accept("STREAM");
+            this.streamingPipelineService.runFull();
+            return;
+        }
+
+        if ("RESUME".equals(mode)) {
+            // Retoma la fase de borrado de una corrida interrumpida sin volver a escanear
+            log.info("Modo RESUME activado: reanudando desde la bitácora...");
+            progress.accept("RESUME");
+            this.dataOracleService.resumeFromJournal();
+            return;
+        }
+
+        if ("FILE".equals(mode)) {
+            // Lista manual grande: se lee en flujo, se cruza con IUO por bloques y alimenta el pipeline STREAM
+            if (args.length < 2) {
+                log.error("Falta la ruta del archivo. Ejemplo: java -jar app.jar FILE skus.txt (o FILE - para stdin)");
+                return;
+            }
+            log.info("Modo FILE activado: validando y eliminando conforme se lee la lista...");
+            progress.accept("FILE");
+            this.streamingPipelineService.run(sink -> this.fileSkuSource.emit(args[1], sink), -1L, true);
+            return;
+        }
+
+        if ("SHARD".equals(mode)) {
+            // Varias instancias se reparten las particiones de IUO; todas deben recibir el mismo runId
+            if (args.length < 2 || args[1].trim().isEmpty()) {
+                log.error("Falta el runId. Ejemplo: java -jar app.jar SHARD 2024-06-01-a (el mismo en todas las instancias)");
+                return;
+            }
+            String runId = args[1].trim();
+            progress.accept("SHARD " + runId);
+            this.shardedPipelineService.run(runId);
+            return;
+        }
+
+        if ("CLEANUP".equals(mode)) {
+            // Limpia campos extra de la entrada online en Mongo; sin lista recorre toda la colección
+            progress.accept("CLEANUP");
+            if (args.length < 2) {
+                log.info("Modo CLEANUP activado: recorriendo la colección inventory...");
+                this.inventoryCleanupService.cleanAll();
+            } else {
+                List<String> skus = splitSkus(args[1]);
+                log.info("Modo CLEANUP activado: {} SKUs proporcionados", skus.size());
+                this.inventoryCleanupService.cleanInventoryFields(skus);
+            }
+            return;
+        }
+
+        if ("FULL".equals(mode) || "DELTA".equals(mode)){
+            // Obtenemos todos los sku de iuo
+            log.info("Modo {} activado: obteniendo todos los SKUs de IUO...", mode);
+            progress.accept("IUO");
+            skusList = this.dataOracleService.getIuoSkus();
+            log.info("Número de SKUs obtenidos de IUO: {}", skusList.size());
+
+            // En DELTA solo se validan los SKUs nuevos o cuyo resultado pudo cambiar
+            deltaPlan = "DELTA".equals(mode)
+                    ? this.deltaPlanner.delta(skusList)
+                    : this.deltaPlanner.full(skusList);
+            skusList = deltaPlan.getToValidate();
+        } else {
+            mode = "MANUAL";
+            // usamos sku puestos manualmente
+            List<String> skusArgs = splitSkus(args[0]);
+
+            if (skusArgs.isEmpty()) {
+                log.error("Los argumentos no contienen SKUs válidos. Ejemplo correcto:");
+                log.error("  java -jar app.jar sku1,sku2,sku3");
+                return;
+            }
+
+            log.info("SKUs proporcionados manualmente: {}", skusArgs.size());
+            progress.accept("IUO");
+            skusList = this.dataOracleService.getIuoSkusManual(skusArgs);
+            log.info("Número de SKUs encontrados en IUO: {}", skusList.size());
+        }
+
+        //Obtener candidatos a apagarse
+        checkCancelled();
+        progress.accept("ATG (" + skusList.size() + " SKUs)");
+        List<SkusToDeleteDTO> skusForDelete = this.dataOracleService.getValidSkusToRemove(skusList);
+        log.info("Número de SKUs candidatos a apagar: {}", skusForDelete.size());
+        checkCancelled();
+
+        // Arriba del umbral de clasificación externa las listas finales no se arman en memoria:
+        // se usa el flujo por archivos aunque el handoff sea memory
+        if ("memory".equalsIgnoreCase(this.appConfig.getExport().getHandoff())
+                && !this.skuExportService.isExternal(skusForDelete.size())) {
+            // las listas pasan directo al borrado; histórico y archivos de delete en segundo plano
+            SkuExportService.Handoff handoff = this.skuExportService.exportForHandoff(skusForDelete);
+            if (deltaPlan != null) {
+                this.deltaPlanner.record(deltaPlan, skusForDelete);
+            }
+            Map<String, List<String>> skusByType = new LinkedHashMap<>();
+            skusByType.put("BT", handoff.getClassification().getBt().asList());
+            skusByType.put("SL", handoff.getClassification().getSl().asList());
+
+            progress.accept("DELETE (BT " + skusByType.get("BT").size() + ", SL " + skusByType.get("SL").size() + ")");
+            this.runJournal.startRun(mode);
+            try {
+                this.dataOracleService.deleteSkusInMemory(skusByType);
+            } catch (Exception e) {
+                // lo que alcanzó a eliminarse debe quedar en el histórico y en los archivos de delete
+                try {
+                    handoff.awaitFiles();
+                } catch (RuntimeException filesError) {
+                    e.addSuppressed(filesError);
+                }
+                throw e;
+            }
+            handoff.awaitFiles();
+            this.runJournal.finishRun();
+            return;
+        }
+
+        // separamos los skus en listas y las imprimimos en la ruta
+        progress.accept("EXPORT (" + skusForDelete.size() + " candidatos)");
+        this.skuExportService.exportSkuLists(skusForDelete);
+        if (deltaPlan != null) {
+            this.deltaPlanner.record(deltaPlan, skusForDelete);
+        }
+
+        // Eliminamos SKUs de las respectivas tablas BT y SL en IUO
+        progress.accept("DELETE");
+        this.runJournal.startRun(mode);
+        this.dataOracleService.deleteSkusFromFiles(Arrays.asList("BT", "SL"));
+        this.runJournal.finishRun();
+    }
+
+    // Busca en el histórico comprimido en qué corridas se eliminó cada SKU y como qué tipo
+    private void lookup(String[] args) throws Exception {
+        if (args.length < 2) {
+            log.error("Falta el SKU a buscar. Ejemplo: java -jar app.jar LOOKUP sku1,sku2");
+            return;
+        }
+        for (String sku : splitSkus(args[1])) {
+            List<HistoryArchive.Match> matches = this.historyArchive.lookup(sku);
+            if (matches.isEmpty()) {
+                log.info("SKU {}: no aparece en el histórico comprimido", sku);
+            }
+            for (HistoryArchive.Match match : matches) {
+                log.info("SKU {}: corrida {} como {}", sku, match.getRun(), match.getProductType());
+            }
+        }
+    }
+
+    // Cancelación cooperativa de un job (modo SERVICE) entre etapas
+    private void checkCancelled() {
+        if (Thread.currentThread().isInterrupted() || runCancellation.isRequested()) {
+            throw new CancellationException("Corrida cancelada");
+        }
+    }
+
+    private static List<String> splitSkus(String input) {
+        return Arrays.stream(input.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    public static String modeOf(String arg) {
+        String mode = arg.trim().toUpperCase();
+        return KNOWN_MODES.contains(mode) ? mode : "MANUAL";
+    }
+}
@@ -0,0 +1,127 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.repository.OracleDBRepository;
+import com.liverpool.imageValidator.shard.PartitionLeaseCoordinator;
+import com.liverpool.imageValidator.utils.QuerysDB;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Modo SHARD: varias instancias con el mismo runId se reparten el cruce de IUO en particiones
+// ORA_HASH. Cada partición tomada se procesa con el pipeline STREAM mientras se renueva su lease;
+// si la instancia cae, el lease vence y otra instancia la retoma (borrados y updates son idempotentes).
+@Slf4j
+@Service
+public class ShardedPipelineService {
+
+    private final JdbcTemplate iuoJdbc;
+    private final OracleDBRepository oracleDBRepository;
+    private final StreamingPipelineService streamingPipelineService;
+    private final AppConfig appConfig;
+
+    public ShardedPipelineService(@Qualifier("iuoJdbcTemplate") JdbcTemplate iuoJdbc,
+                                  OracleDBRepository oracleDBRepository,
+                                  StreamingPipelineService streamingPipelineService,
+                                  AppConfig appConfig) {
+        this.iuoJdbc = iuoJdbc;
+        this.oracleDBRepository = oracleDBRepository;
+        this.streamingPipelineService = streamingPipelineService;
+        this.appConfig = appConfig;
+    }
+
+    public long run(String runId) throws Exception {
+        AppConfig.Shard cfg = appConfig.getShard();
+        int partitions = Math.max(1, cfg.getPartitions());
+        PartitionLeaseCoordinator coordinator = new PartitionLeaseCoordinator(iuoJdbc, leaseTable(cfg), runId,
+                owner(cfg), cfg.getLeaseSeconds() * 1000L, Clock.systemUTC());
+        coordinator.register(partitions);
+        log.info("Modo SHARD activado: corrida {} con {} particiones, instancia {}", runId, partitions, coordinator.getOwner());
+
+        long expected = oracleDBRepository.estimateIuoOverlap();
+        long expectedPerPartition = expected < 0 ? -1L : expected / partitions;
+
+        ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "shard-lease-renewer");
+            t.setDaemon(true);
+            return t;
+        });
+        long totalDeleted = 0L;
+        int processed = 0;
+        try {
+            while (true) {
+                int partition = coordinator.claim();
+                if (partition < 0) {
+                    int open = coordinator.remaining();
+                    if (open == 0) break;
+                    // las que faltan están en otras instancias; si alguna cae, su lease vence y se retoma aquí
+                    log.info("Sin particiones libres; {} en proceso en otras instancias, esperando...", open);
+                    TimeUnit.SECONDS.sleep(Math.max(1L, cfg.getPollSeconds()));
+                    continue;
+                }
+                totalDeleted += runPartition(coordinator, renewer, partitions, partition, expectedPerPartition);
+                processed++;
+            }
+        } finally {
+            renewer.shutdownNow();
+        }
+
+        log.info("-- Resumen SHARD");
+        log.info("Corrida {}: particiones procesadas por esta instancia: {} de {}", runId, processed, partitions);
+        log.info("Total filas eliminadas por esta instancia: {}", totalDeleted);
+        return totalDeleted;
+    }
+
+    private long runPartition(PartitionLeaseCoordinator coordinator, ScheduledExecutorService renewer,
+                              int partitions, int partition, long expectedSkus) throws Exception {
+        long renewMs = Math.max(1000L, appConfig.getShard().getRenewSeconds() * 1000L);
+        ScheduledFuture<?> renewal = renewer.scheduleAtFixedRate(() -> {
+            try {
+                if (!coordinator.renew(partition)) {
+                    log.warn("Se perdió el lease de la partición {}; otra instancia puede retomarla", partition);
+                }
+            } catch (Exception e) {
+                log.warn("No se pudo renovar el lease de la partición {}: {}", partition, e.getMessage());
+            }
+        }, renewMs, renewMs, TimeUnit.MILLISECONDS);
+
+        boolean finished = false;
+        try {
+            log.info("Procesando partición {} ({} de {})", partition, partition + 1, partitions);
+            long deleted = streamingPipelineService.run(
+                    sink -> oracleDBRepository.streamIuoSkusPartition(partitions, partition, sink), expectedSkus);
+            finished = true;
+            return deleted;
+        } finally {
+            renewal.cancel(false);
+            try {
+                if (!finished) {
+                    coordinator.release(partition);
+                } else if (!coordinator.complete(partition)) {
+                    log.warn("La partición {} terminó después de perder su lease; la otra instancia la cerrará", partition);
+                }
+            } catch (Exception e) {
+                log.warn("No se pudo actualizar el lease de la partición {}: {}", partition, e.getMessage());
+            }
+        }
+    }
+
+    private String leaseTable(AppConfig.Shard cfg) {
+        return QuerysDB.LEASE_TABLE.replace("_IUO_SCHE_", appConfig.getIuoSchema())
+                .replace("_LEASE_NAME_", cfg.getLeaseTable().trim());
+    }
+
+    // pid@host por defecto: único por proceso
+    private static String owner(AppConfig.Shard cfg) {
+        String owner = cfg.getOwner();
+        return owner == null || owner.trim().isEmpty() ? ManagementFactory.getRuntimeMXBean().getName() : owner.trim();
+    }
+}
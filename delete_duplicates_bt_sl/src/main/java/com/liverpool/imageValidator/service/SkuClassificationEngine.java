@@ -0,0 +1,134 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.models.SkuClassification;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.utils.LongArrayList;
+import com.liverpool.imageValidator.utils.SkuCodec;
+import com.liverpool.imageValidator.utils.SortedSkuList;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Separa los candidatos en BT / SL / Others:
+// - un SKU que está en BT y en SL, o que tiene cualquier otro PRODUCT_TYPE, va a Others
+// - cada lista sale ordenada como Collections.sort sobre Strings
+// Con SKUs numéricos trabaja sobre long[] ordenados y hace un solo merge de tres vías;
+// si aparece un SKU no numérico usa el cálculo con HashSet.
+@Component
+public class SkuClassificationEngine {
+
+    public SkuClassification classify(List<SkusToDeleteDTO> skus) {
+        if (skus == null || skus.isEmpty()) return SkuClassification.empty();
+
+        int expected = Math.max(16, skus.size());
+        LongArrayList bt = new LongArrayList(expected / 2);
+        LongArrayList sl = new LongArrayList(expected / 2);
+        LongArrayList others = new LongArrayList(16);
+
+        for (SkusToDeleteDTO dto : skus) {
+            long packed = SkuCodec.pack(dto.getSkuId());
+            if (packed == SkuCodec.NOT_PACKABLE) {
+                return classifyStrings(skus);
+            }
+            if (dto.getProductType() == 0) {
+                bt.add(packed);
+            } else if (dto.getProductType() == 1) {
+                sl.add(packed);
+            } else {
+                others.add(packed);
+            }
+        }
+
+        return mergePacked(bt.toSortedUniqueArray(), sl.toSortedUniqueArray(), others.toSortedUniqueArray(),
+                bt.size(), sl.size(), others.size());
+    }
+
+    private SkuClassification mergePacked(long[] bt, long[] sl, long[] others,
+                                          long btRows, long slRows, long othersRows) {
+        long[] finalBt = new long[bt.length];
+        long[] finalSl = new long[sl.length];
+        long[] finalOthers = new long[others.length + Math.min(bt.length, sl.length)];
+        int nBt = 0, nSl = 0, nOthers = 0;
+        long duplicated = 0L;
+
+        int i = 0, j = 0, k = 0;
+        while (i < bt.length || j < sl.length || k < others.length) {
+            long min = Long.MAX_VALUE;
+            if (i < bt.length) min = Math.min(min, bt[i]);
+            if (j < sl.length) min = Math.min(min, sl[j]);
+            if (k < others.length) min = Math.min(min, others[k]);
+
+            boolean inBt = i < bt.length && bt[i] == min;
+            boolean inSl = j < sl.length && sl[j] == min;
+            boolean inOthers = k < others.length && others[k] == min;
+            if (inBt) i++;
+            if (inSl) j++;
+            if (inOthers) k++;
+
+            if (inBt && inSl) duplicated++;
+            if (inOthers || (inBt && inSl)) {
+                finalOthers[nOthers++] = min;
+            } else if (inBt) {
+                finalBt[nBt++] = min;
+            } else {
+                finalSl[nSl++] = min;
+            }
+        }
+
+        return new SkuClassification(
+                SortedSkuList.ofPacked(trim(finalBt, nBt)),
+                SortedSkuList.ofPacked(trim(finalSl, nSl)),
+                SortedSkuList.ofPacked(trim(finalOthers, nOthers)),
+                btRows, slRows, othersRows, duplicated);
+    }
+
+    private static long[] trim(long[] values, int size) {
+        if (values.length == size) return values;
+        long[] out = new long[size];
+        System.arraycopy(values, 0, out, 0, size);
+        return out;
+    }
+
+    // Respaldo para SKUs no numéricos (mismo cálculo que la versión original con HashSet)
+    private SkuClassification classifyStrings(List<SkusToDeleteDTO> skus) {
+        Set<String> btSet = new HashSet<>();
+        Set<String> slSet = new HashSet<>();
+        Set<String> othersSet = new HashSet<>();
+        long btRows = 0L, slRows = 0L, othersRows = 0L;
+
+        for (SkusToDeleteDTO dto : skus) {
+            if (dto.getProductType() == 0) {
+                btSet.add(dto.getSkuId());
+                btRows++;
+            } else if (dto.getProductType() == 1) {
+                slSet.add(dto.getSkuId());
+                slRows++;
+            } else {
+                othersSet.add(dto.getSkuId());
+                othersRows++;
+            }
+        }
+
+        Set<String> duplicated = new HashSet<>(btSet);
+        duplicated.retainAll(slSet);
+
+        btSet.removeAll(duplicated);
+        btSet.removeAll(othersSet);
+        slSet.removeAll(duplicated);
+        slSet.removeAll(othersSet);
+        othersSet.addAll(duplicated);
+
+        return new SkuClassification(sorted(btSet), sorted(slSet), sorted(othersSet),
+                btRows, slRows, othersRows, duplicated.size());
+    }
+
+    private static SortedSkuList sorted(Set<String> set) {
+        List<String> list = new ArrayList<>(set);
+        Collections.sort(list);
+        return SortedSkuList.ofStrings(list);
+    }
+}
@@ -1,106 +1,251 @@
 package com.liverpool.imageValidator.service;
 
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.history.HistoryArchive;
+import com.liverpool.imageValidator.metrics.RunMetrics;
+import com.liverpool.imageValidator.models.SkuClassification;
 import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.utils.SortedSkuList;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class SkuExportService {
 
     private static final Path BASE_DIR_EXECUTION = Paths.get("files", "execution", "skuList");
     private static final Path BASE_DIR_DELETE = Paths.get("files", "deleteDB", "skuList");
     private static final DateTimeFormatter TS_FMT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
 
-    public List<String>  exportSkuLists(List<SkusToDeleteDTO> skusForDelete) {
-        if (skusForDelete == null || skusForDelete.isEmpty()) {
-            log.info("No hay SKUs para procesar. Limpio archivos previos en deleteDB y retorno.");
+    private final SkuClassificationEngine skuClassificationEngine;
+    private final RunMetrics runMetrics;
+    private final HistoryArchive historyArchive;
+    private final AppConfig appConfig;
 
-            // Borra archivos previos en DIR_DELETE (BT y SL)
-            try {
-                Path dirBt = BASE_DIR_DELETE.resolve("BT");
-                Path dirSl = BASE_DIR_DELETE.resolve("SL");
+    private ExecutorService auditWriter;
 
-                // Archivos que queremos eliminar si existen
-                Path fileDelBt = dirBt.resolve("BigTicket_List_Delete.txt");
-                Path fileDelSl = dirSl.resolve("SoftLine_List_Delete.txt");
+    @PostConstruct
+    public void init() {
+        this.auditWriter = Executors.newSingleThreadExecutor(r -> new Thread(r, "audit-writer"));
+    }
 
-                // Borra si existen
-                Files.deleteIfExists(fileDelBt);
-                Files.deleteIfExists(fileDelSl);
+    public void exportSkuLists(List<SkusToDeleteDTO> skusForDelete) {
+        if (skusForDelete == null || skusForDelete.isEmpty()) {
+            log.info("No hay SKUs para procesar. Limpio archivos previos en deleteDB y retorno.");
+            clearDeleteFiles();
+            return;
+        }
 
-                log.info("Archivos previos de deleteDB eliminados (si existían).");
+        if (isExternal(skusForDelete.size())) {
+            log.info("{} filas candidatas superan export.externalSortThreshold: clasificación con corridas en disco",
+                    skusForDelete.size());
+            try (ExternalSkuClassifier classifier = openExternalClassifier()) {
+                classifier.addAll(skusForDelete);
+                exportExternal(classifier);
             } catch (IOException e) {
-                log.warn("No fue posible eliminar archivos previos en deleteDB: {}", e.getMessage(), e);
+                log.error("Error en la clasificación externa: {}", e.getMessage(), e);
+                throw new RuntimeException(e);
             }
+            return;
+        }
+
+        SkuClassification classification = classify(skusForDelete);
+        writeFiles(classification, LocalDateTime.now().format(TS_FMT));
+    }
 
-            return Collections.emptyList();
+    // Arriba de export.externalSortThreshold filas las listas finales no se arman en memoria
+    public boolean isExternal(long rows) {
+        long threshold = appConfig.getExport().getExternalSortThreshold();
+        return threshold > 0 && rows > threshold;
+    }
+
+    // Sink para alimentar filas candidatas sin tenerlas todas en memoria; se termina con exportExternal
+    public ExternalSkuClassifier openExternalClassifier() throws IOException {
+        AppConfig.Export cfg = appConfig.getExport();
+        return new ExternalSkuClassifier(Paths.get(cfg.getSpillDir()), cfg.getRunSize(), cfg.getMergeFanIn());
+    }
+
+    // Merge de las corridas a listas en disco y mismos archivos de salida que el camino en memoria
+    public void exportExternal(ExternalSkuClassifier classifier) throws IOException {
+        String ts = LocalDateTime.now().format(TS_FMT);
+        Path bt = classifier.workFile("BT.txt");
+        Path sl = classifier.workFile("SL.txt");
+        Path others = classifier.workFile("Others.txt");
+
+        long classifyStart = System.nanoTime();
+        ExternalSkuClassifier.Result result = classifier.finish(bt, sl, others);
+        long rows = result.getBtRows() + result.getSlRows() + result.getOthersRows();
+        runMetrics.recordClassification(System.nanoTime() - classifyStart, (int) Math.min(Integer.MAX_VALUE, rows));
+        log.info("Clasificación externa: {} corridas en disco", result.getRuns());
+        logTotals(result.getBtRows(), result.getSlRows(), result.getOthersRows(), result.getDuplicated(),
+                result.getBt(), result.getSl(), result.getOthers());
+
+        writeFiles(ExportList.onDisk(bt, result.getBt()), ExportList.onDisk(sl, result.getSl()),
+                ExportList.onDisk(others, result.getOthers()), ts);
+    }
+
+    // Modo memory: la clasificación pasa directo al borrado y los archivos (histórico y delete)
+    // se escriben en segundo plano
+    public Handoff exportForHandoff(List<SkusToDeleteDTO> skusForDelete) {
+        if (skusForDelete == null || skusForDelete.isEmpty()) {
+            log.info("No hay SKUs para procesar. Limpio archivos previos en deleteDB y retorno.");
+            return new Handoff(SkuClassification.empty(), CompletableFuture.runAsync(this::clearDeleteFiles, auditWriter));
         }
 
-        // Separación inicial
-        List<String> btList = skusForDelete.stream()
-                .filter(s -> s.getProductType() == 0)
-                .map(SkusToDeleteDTO::getSkuId)
-                .collect(Collectors.toList());
+        SkuClassification classification = classify(skusForDelete);
+        String ts = LocalDateTime.now().format(TS_FMT);
+        return new Handoff(classification, CompletableFuture.runAsync(() -> writeFiles(classification, ts), auditWriter));
+    }
 
-        List<String> slList = skusForDelete.stream()
-                .filter(s -> s.getProductType() == 1)
-                .map(SkusToDeleteDTO::getSkuId)
-                .collect(Collectors.toList());
+    @Getter
+    @AllArgsConstructor
+    public static class Handoff {
+        private final SkuClassification classification;
+        private final CompletableFuture<Void> filesWritten;
 
-        List<String> othersList = skusForDelete.stream()
-                .filter(s -> s.getProductType() != 0 && s.getProductType() != 1)
-                .map(SkusToDeleteDTO::getSkuId)
-                .collect(Collectors.toList());
+        // Espera al escritor de archivos; un error aquí no deshace lo ya eliminado pero marca la corrida
+        public void awaitFiles() {
+            try {
+                filesWritten.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Falló la escritura de archivos de auditoría", e.getCause());
+            }
+        }
+    }
 
-        log.info("--Total Productos de BD");
-        log.info("Productos BT: {}", btList.size());
-        log.info("Productos SL: {}", slList.size());
-        log.info("Otros Productos: {}", othersList.size());
+    // Borra archivos previos en DIR_DELETE (BT y SL)
+    private void clearDeleteFiles() {
+        try {
+            Path dirBt = BASE_DIR_DELETE.resolve("BT");
+            Path dirSl = BASE_DIR_DELETE.resolve("SL");
 
-        // Detección y movimiento de duplicados entre BT y SL hacia Others
-        Set<String> btSet = new HashSet<>(btList);
-        Set<String> slSet = new HashSet<>(slList);
-        Set<String> othersSet = new HashSet<>(othersList);
+            // Archivos que queremos eliminar si existen
+            Path fileDelBt = dirBt.resolve("BigTicket_List_Delete.txt");
+            Path fileDelSl = dirSl.resolve("SoftLine_List_Delete.txt");
 
-        Set<String> duplicated = new HashSet<>(btSet);
-        Set<String> duplicatedOthers = new HashSet<>(othersList);
-        duplicated.retainAll(slSet);
+            // Borra si existen
+            Files.deleteIfExists(fileDelBt);
+            Files.deleteIfExists(fileDelSl);
 
-        log.info("Productos duplicados (existe en BT y SL): {}", duplicated.size());
+            log.info("Archivos previos de deleteDB eliminados (si existían).");
+        } catch (IOException e) {
+            log.warn("No fue posible eliminar archivos previos en deleteDB: {}", e.getMessage(), e);
+        }
+    }
 
-        othersSet.addAll(duplicated);
-        btSet.removeAll(duplicated);
-        btSet.removeAll(duplicatedOthers);
-        slSet.removeAll(duplicated);
-        slSet.removeAll(duplicatedOthers);
+    private SkuClassification classify(List<SkusToDeleteDTO> skusForDelete) {
+        long classifyStart = System.nanoTime();
+        SkuClassification classification = skuClassificationEngine.classify(skusForDelete);
+        runMetrics.recordClassification(System.nanoTime() - classifyStart, skusForDelete.size());
 
-        List<String> finalBt = new ArrayList<>(btSet);
-        List<String> finalSl = new ArrayList<>(slSet);
-        List<String> finalOthers = new ArrayList<>(othersSet);
+        logTotals(classification.getBtRows(), classification.getSlRows(), classification.getOthersRows(),
+                classification.getDuplicated(), classification.getBt().size(), classification.getSl().size(),
+                classification.getOthers().size());
+        return classification;
+    }
 
-        Collections.sort(finalBt);
-        Collections.sort(finalSl);
-        Collections.sort(finalOthers);
+    private void logTotals(long btRows, long slRows, long othersRows, long duplicated, long bt, long sl, long others) {
+        log.info("--Total Productos de BD");
+        log.info("Productos BT: {}", btRows);
+        log.info("Productos SL: {}", slRows);
+        log.info("Otros Productos: {}", othersRows);
+        log.info("Productos duplicados (existe en BT y SL): {}", duplicated);
 
         log.info("-- Totales después de mover duplicados a others");
-        log.info("Productos BT en archivo: {}", finalBt.size());
-        log.info("Productos SL en archivo: {}", finalSl.size());
-        log.info("Otros Productos en archivo: {}", finalOthers.size());
+        log.info("Productos BT en archivo: {}", bt);
+        log.info("Productos SL en archivo: {}", sl);
+        log.info("Otros Productos en archivo: {}", others);
+    }
+
+    // Lista final a escribir: en memoria (SortedSkuList) o ya ordenada en disco (clasificación externa)
+    private interface ExportList {
+
+        long size();
+
+        void writeTo(Path path) throws IOException;
+
+        void appendTo(HistoryArchive.Writer archive, String productType) throws IOException;
+
+        static ExportList inMemory(SortedSkuList list) {
+            return new ExportList() {
+                @Override
+                public long size() {
+                    return list.size();
+                }
+
+                @Override
+                public void writeTo(Path path) throws IOException {
+                    writeListToFile(list, path);
+                }
 
-        LocalDateTime now = LocalDateTime.now();
-        String ts = now.format(TS_FMT);
+                @Override
+                public void appendTo(HistoryArchive.Writer archive, String productType) throws IOException {
+                    archive.append(productType, list.asList());
+                }
+            };
+        }
+
+        static ExportList onDisk(Path file, long size) {
+            return new ExportList() {
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public void writeTo(Path path) throws IOException {
+                    Files.createDirectories(path.getParent());
+                    Files.copy(file, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                // En rebanadas: el writer agrupa por tipo, así los bloques salen iguales que con la lista completa
+                @Override
+                public void appendTo(HistoryArchive.Writer archive, String productType) throws IOException {
+                    List<String> slice = new ArrayList<>(4096);
+                    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            slice.add(line);
+                            if (slice.size() == 4096) {
+                                archive.append(productType, slice);
+                                slice.clear();
+                            }
+                        }
+                    }
+                    archive.append(productType, slice);
+                }
+            };
+        }
+    }
+
+    private void writeFiles(SkuClassification classification, String ts) {
+        writeFiles(ExportList.inMemory(classification.getBt()), ExportList.inMemory(classification.getSl()),
+                ExportList.inMemory(classification.getOthers()), ts);
+    }
 
+    private void writeFiles(ExportList finalBt, ExportList finalSl, ExportList finalOthers, String ts) {
+        long exportStart = System.nanoTime();
         try {
             // Rutas de execution (histórico)
             Path dirBT = BASE_DIR_EXECUTION.resolve("BT");
@@ -112,9 +257,11 @@ public class SkuExportService {
             Path dirDelSL = BASE_DIR_DELETE.resolve("SL");
 
             // Crear directorios si no existen
-            Files.createDirectories(dirBT);
-            Files.createDirectories(dirSL);
-            Files.createDirectories(dirOthers);
+            if (historyArchive.isTextEnabled()) {
+                Files.createDirectories(dirBT);
+                Files.createDirectories(dirSL);
+                Files.createDirectories(dirOthers);
+            }
             Files.createDirectories(dirDelBT);
             Files.createDirectories(dirDelSL);
 
@@ -132,38 +279,119 @@ public class SkuExportService {
             deleteIfExistsQuietly(fileDelSl);
 
             // Escribir archivos históricos
-            writeListToFile(finalBt, fileBt);
-            writeListToFile(finalSl, fileSl);
-            writeListToFile(finalOthers, fileOthers);
+            if (historyArchive.isTextEnabled()) {
+                finalBt.writeTo(fileBt);
+                finalSl.writeTo(fileSl);
+                finalOthers.writeTo(fileOthers);
+            }
+            if (historyArchive.isEnabled()) {
+                try (HistoryArchive.Writer archive = historyArchive.open(ts)) {
+                    finalBt.appendTo(archive, "BT");
+                    finalSl.appendTo(archive, "SL");
+                    finalOthers.appendTo(archive, "Others");
+                }
+            }
 
             // Escribir archivos de delete
-            writeListToFile(finalBt, fileDelBt);
-            writeListToFile(finalSl, fileDelSl);
+            finalBt.writeTo(fileDelBt);
+            finalSl.writeTo(fileDelSl);
 
             log.info("Archivos escritos correctamente:");
-            log.info("BT -> {}", fileBt.toAbsolutePath());
-            log.info("SL -> {}", fileSl.toAbsolutePath());
-            log.info("Others -> {}", fileOthers.toAbsolutePath());
+            if (historyArchive.isTextEnabled()) {
+                log.info("BT -> {}", fileBt.toAbsolutePath());
+                log.info("SL -> {}", fileSl.toAbsolutePath());
+                log.info("Others -> {}", fileOthers.toAbsolutePath());
+            }
             log.info("BT delete -> {}", fileDelBt.toAbsolutePath());
             log.info("SL delete -> {}", fileDelSl.toAbsolutePath());
-
-            return finalSl;
+            runMetrics.recordExport(System.nanoTime() - exportStart,
+                    finalBt.size() + finalSl.size() + finalOthers.size());
         } catch (IOException e) {
             log.error("Error al crear directorios o escribir archivos: {}", e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
 
-    private void writeListToFile(List<String> list, Path path) throws IOException {
+    // Histórico para el modo streaming: los SKUs se agregan en orden de llegada
+    public HistoryAppender openHistoryAppender() throws IOException {
+        String ts = LocalDateTime.now().format(TS_FMT);
+        HistoryArchive.Writer archive = historyArchive.isEnabled() ? historyArchive.open(ts) : null;
+        if (!historyArchive.isTextEnabled()) {
+            return new HistoryAppender(null, null, null, archive);
+        }
+        return new HistoryAppender(
+                openAppend(BASE_DIR_EXECUTION.resolve("BT").resolve("BigTicket_List_" + ts + ".txt")),
+                openAppend(BASE_DIR_EXECUTION.resolve("SL").resolve("SoftLine_List_" + ts + ".txt")),
+                openAppend(BASE_DIR_EXECUTION.resolve("Others").resolve("Others_List_" + ts + ".txt")),
+                archive);
+    }
+
+    private BufferedWriter openAppend(Path path) throws IOException {
         Files.createDirectories(path.getParent());
-        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-            for (String sku : list) {
+        log.info("Archivo histórico (streaming) -> {}", path.toAbsolutePath());
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public static class HistoryAppender implements Closeable {
+
+        private final BufferedWriter btWriter;
+        private final BufferedWriter slWriter;
+        private final BufferedWriter othersWriter;
+        // null si el histórico comprimido está deshabilitado
+        private final HistoryArchive.Writer archive;
+
+        private HistoryAppender(BufferedWriter btWriter, BufferedWriter slWriter, BufferedWriter othersWriter,
+                                HistoryArchive.Writer archive) {
+            this.btWriter = btWriter;
+            this.slWriter = slWriter;
+            this.othersWriter = othersWriter;
+            this.archive = archive;
+        }
+
+        public void appendAll(List<String> bt, List<String> sl, List<String> others) throws IOException {
+            append(btWriter, bt);
+            append(slWriter, sl);
+            append(othersWriter, others);
+            if (archive != null) {
+                archive.append("BT", bt);
+                archive.append("SL", sl);
+                archive.append("Others", others);
+            }
+        }
+
+        private void append(BufferedWriter writer, List<String> skus) throws IOException {
+            if (writer == null) return;
+            for (String sku : skus) {
                 writer.write(sku);
                 writer.newLine();
             }
             writer.flush();
         }
+
+        @Override
+        public void close() throws IOException {
+            try (BufferedWriter bt = btWriter; BufferedWriter sl = slWriter; BufferedWriter others = othersWriter;
+                 HistoryArchive.Writer compressed = archive) {
+                // cierre de los archivos (try-with-resources omite los null)
+            }
+        }
+    }
+
+    private static void writeListToFile(SortedSkuList list, Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            list.writeLines(writer);
+            writer.flush();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // termina de escribir lo pendiente antes de salir
+        auditWriter.shutdown();
+        auditWriter.awaitTermination(10, TimeUnit.MINUTES);
     }
 
     private void deleteIfExistsQuietly(Path path) {
@@ -0,0 +1,202 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.metrics.RunMetrics;
+import com.liverpool.imageValidator.models.SkuClassification;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.pacing.PacingController;
+import com.liverpool.imageValidator.pacing.PacingControllerFactory;
+import com.liverpool.imageValidator.repository.OracleDBRepository;
+import com.liverpool.imageValidator.utils.SkuDeduplicator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Modo STREAM: las páginas de IUO (cursores cortos) alimentan una cola acotada y la validación en ATG,
+// la clasificación y el borrado consumen el flujo conforme se llenan los lotes.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StreamingPipelineService {
+
+    // Marca de fin de flujo (se compara por identidad)
+    private static final String END_OF_STREAM = new String("<EOS>");
+
+    private final OracleDBRepository oracleDBRepository;
+    private final DataOracleServiceImpl dataOracleService;
+    private final SkuExportService skuExportService;
+    private final AppConfig appConfig;
+    private final PacingControllerFactory pacingControllerFactory;
+    private final AtgValidationEngine atgValidationEngine;
+    private final SkuClassificationEngine skuClassificationEngine;
+    private final RunMetrics runMetrics;
+
+    @FunctionalInterface
+    public interface SkuSource {
+        void emit(Consumer<String> sink) throws Exception;
+    }
+
+    public long runFull() throws Exception {
+        log.info("Modo STREAM activado: leyendo SKUs de IUO en flujo...");
+        long expected = oracleDBRepository.estimateIuoOverlap();
+        log.info("Cruce estimado de IUO: {}", expected < 0 ? "sin estadísticas" : expected);
+        return run(oracleDBRepository::streamIuoSkus, expected);
+    }
+
+    public long run(SkuSource source) throws Exception {
+        return run(source, -1L);
+    }
+
+    public long run(SkuSource source, long expectedSkus) throws Exception {
+        return run(source, expectedSkus, false);
+    }
+
+    // deduplicated: la fuente ya entrega cada SKU una sola vez (FileSkuSource) y no se vuelve a filtrar
+    public long run(SkuSource source, long expectedSkus, boolean deduplicated) throws Exception {
+        int batchSize = appConfig.getBatchSize();
+        int windowSize = Math.max(batchSize, atgValidationEngine.windowSize());
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(Math.max(windowSize, appConfig.getStreamQueueCapacity()));
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicReference<Throwable> producerError = new AtomicReference<>();
+        SkuDeduplicator deduplicator = deduplicated ? null : new SkuDeduplicator();
+        long[] read = new long[1];
+        long[] unique = new long[1];
+
+        Thread producer = new Thread(() -> {
+            try {
+                source.emit(sku -> {
+                    read[0]++;
+                    if (sku == null) return;
+                    String trimmed = sku.trim();
+                    if (!trimmed.isEmpty() && (deduplicator == null || deduplicator.add(trimmed))) {
+                        unique[0]++;
+                        offer(queue, trimmed, cancelled);
+                    }
+                });
+            } catch (Throwable t) {
+                if (!cancelled.get()) {
+                    producerError.set(t);
+                }
+            } finally {
+                try {
+                    offer(queue, END_OF_STREAM, cancelled);
+                } catch (CancellationException ignored) {
+                    // el consumidor ya terminó
+                }
+            }
+        }, "iuo-stream-producer");
+        producer.setDaemon(true);
+        producer.start();
+
+        List<String> window = new ArrayList<>(windowSize);
+        List<String> btPending = new ArrayList<>(batchSize);
+        List<String> slPending = new ArrayList<>(batchSize);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long validated = 0L;
+        long totalDeleted = 0L;
+        int[] totals = new int[3];
+        PacingController btPacing = pacingControllerFactory.create("BT");
+        PacingController slPacing = pacingControllerFactory.create("SL");
+
+        try (SkuExportService.HistoryAppender history = skuExportService.openHistoryAppender()) {
+            while (true) {
+                String sku = queue.take();
+                if (sku == END_OF_STREAM) break;
+                window.add(sku);
+                if (window.size() < windowSize) continue;
+
+                validated += processWindow(window, expectedSkus, btPending, slPending, history, totals);
+                window.clear();
+                totalDeleted += flush(btPending, "BT", btPacing, false, futures);
+                totalDeleted += flush(slPending, "SL", slPacing, false, futures);
+            }
+
+            if (producerError.get() != null) {
+                throw new IllegalStateException("Falló la lectura de SKUs en IUO", producerError.get());
+            }
+
+            validated += processWindow(window, expectedSkus, btPending, slPending, history, totals);
+            totalDeleted += flush(btPending, "BT", btPacing, true, futures);
+            totalDeleted += flush(slPending, "SL", slPacing, true, futures);
+        } finally {
+            cancelled.set(true);
+            producer.interrupt();
+        }
+
+        dataOracleService.awaitMongoUpdates(futures);
+        runMetrics.recordIuoStreamed(read[0]);
+
+        log.info("-- Resumen STREAM");
+        log.info("Filas leídas de IUO: {}", read[0]);
+        log.info("SKUs únicos: {}", unique[0]);
+        log.info("SKUs candidatos a apagar: {}", validated);
+        log.info("Productos BT: {} | SL: {} | Others: {}", totals[0], totals[1], totals[2]);
+        log.info("Total filas eliminadas: {}", totalDeleted);
+        return totalDeleted;
+    }
+
+    // Valida una ventana (lotes de ATG en vuelo) y la clasifica. Como cada SKU llega una sola vez,
+    // todas sus filas de ATG caen en la misma ventana y la clasificación es exacta.
+    private int processWindow(List<String> window, long expectedSkus, List<String> btPending, List<String> slPending,
+                              SkuExportService.HistoryAppender history, int[] totals) throws Exception {
+        if (window.isEmpty()) return 0;
+
+        List<SkusToDeleteDTO> valid = dataOracleService.getValidSkusToRemove(window, expectedSkus);
+        long start = System.nanoTime();
+        SkuClassification classification = skuClassificationEngine.classify(valid);
+        runMetrics.recordClassification(System.nanoTime() - start, valid.size());
+        List<String> bt = classification.getBt().asList();
+        List<String> sl = classification.getSl().asList();
+        List<String> others = classification.getOthers().asList();
+
+        history.appendAll(bt, sl, others);
+        btPending.addAll(bt);
+        slPending.addAll(sl);
+        totals[0] += bt.size();
+        totals[1] += sl.size();
+        totals[2] += others.size();
+        return bt.size() + sl.size() + others.size();
+    }
+
+    // Envía a borrar bloques completos del tamaño que indique el pacing; con drain=true vacía lo pendiente
+    private long flush(List<String> pending, String productType, PacingController pacing, boolean drain,
+                       List<CompletableFuture<Void>> futures) {
+        long deleted = 0L;
+        while (!pending.isEmpty() && (drain || pending.size() >= pacing.nextChunkSize())) {
+            int end = Math.min(pacing.nextChunkSize(), pending.size());
+            List<String> chunk = new ArrayList<>(pending.subList(0, end));
+            pending.subList(0, end).clear();
+            log.info("Eliminando bloque STREAM ({}) SKUs={}", productType, chunk.size());
+            deleted += dataOracleService.deleteChunk(chunk, productType, futures, pacing);
+            // como en FULL, sin pausa después del último bloque pendiente
+            if (!pending.isEmpty()) {
+                pacing.pause();
+            }
+        }
+        return deleted;
+    }
+
+    private static void offer(BlockingQueue<String> queue, String sku, AtomicBoolean cancelled) {
+        try {
+            while (!queue.offer(sku, 1, TimeUnit.SECONDS)) {
+                if (cancelled.get()) {
+                    throw new CancellationException("Pipeline STREAM cancelado");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Pipeline STREAM interrumpido");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.liverpool.imageValidator.shard;
+
+import com.liverpool.imageValidator.utils.QuerysDB;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.List;
+
+// Reparto de particiones de una corrida SHARD entre instancias mediante leases en una tabla de
+// coordinación. Tomar, renovar y cerrar son UPDATE condicionados: de varias instancias que compiten
+// por la misma fila solo una ve 1 fila afectada. Un lease vencido (instancia caída) vuelve a ser tomable.
+@Slf4j
+public class PartitionLeaseCoordinator {
+
+    private final JdbcTemplate jdbc;
+    private final String runId;
+    private final String owner;
+    private final long leaseMs;
+    private final Clock clock;
+
+    private final String insertSql;
+    private final String countSql;
+    private final String countOpenSql;
+    private final String claimableSql;
+    private final String claimSql;
+    private final String renewSql;
+    private final String completeSql;
+    private final String releaseSql;
+
+    public PartitionLeaseCoordinator(JdbcTemplate jdbc, String table, String runId, String owner, long leaseMs, Clock clock) {
+        this.jdbc = jdbc;
+        this.runId = runId;
+        this.owner = owner;
+        this.leaseMs = leaseMs;
+        this.clock = clock;
+        this.insertSql = QuerysDB.INSERT_LEASE.replace("_LEASE_TABLE_", table);
+        this.countSql = QuerysDB.COUNT_LEASES.replace("_LEASE_TABLE_", table);
+        this.countOpenSql = QuerysDB.COUNT_OPEN_LEASES.replace("_LEASE_TABLE_", table);
+        this.claimableSql = QuerysDB.SELECT_CLAIMABLE_LEASES.replace("_LEASE_TABLE_", table);
+        this.claimSql = QuerysDB.CLAIM_LEASE.replace("_LEASE_TABLE_", table);
+        this.renewSql = QuerysDB.RENEW_LEASE.replace("_LEASE_TABLE_", table);
+        this.completeSql = QuerysDB.COMPLETE_LEASE.replace("_LEASE_TABLE_", table);
+        this.releaseSql = QuerysDB.RELEASE_LEASE.replace("_LEASE_TABLE_", table);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    // Registra las particiones de la corrida; las demás instancias pueden estar haciendo lo mismo
+    public void register(int partitions) {
+        int created = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+            try {
+                created += jdbc.update(insertSql, runId, partition);
+            } catch (DuplicateKeyException e) {
+                // ya la registró otra instancia
+            }
+        }
+        Integer total = jdbc.queryForObject(countSql, Integer.class, runId);
+        if (total == null || total != partitions) {
+            throw new IllegalStateException("La corrida " + runId + " tiene " + total
+                    + " particiones registradas y esta instancia espera " + partitions);
+        }
+        log.info("Corrida {}: {} particiones ({} registradas por {})", runId, partitions, created, owner);
+    }
+
+    // Siguiente partición tomada por esta instancia; -1 si no hay ninguna pendiente ni vencida
+    public int claim() {
+        long now = clock.millis();
+        List<Integer> candidates = jdbc.queryForList(claimableSql, Integer.class, runId, now);
+        if (candidates.isEmpty()) return -1;
+        // cada instancia empieza en un punto distinto para no competir todas por la primera
+        Collections.rotate(candidates, -Math.floorMod(owner.hashCode(), candidates.size()));
+        for (Integer partition : candidates) {
+            if (jdbc.update(claimSql, owner, now + leaseMs, runId, partition, now) == 1) {
+                log.info("Partición {} tomada por {}", partition, owner);
+                return partition;
+            }
+        }
+        return -1;
+    }
+
+    // false si el lease ya no es de esta instancia (venció y otra lo tomó)
+    public boolean renew(int partition) {
+        return jdbc.update(renewSql, clock.millis() + leaseMs, runId, partition, owner) == 1;
+    }
+
+    public boolean complete(int partition) {
+        return jdbc.update(completeSql, clock.millis(), runId, partition, owner) == 1;
+    }
+
+    public void release(int partition) {
+        jdbc.update(releaseSql, runId, partition, owner);
+    }
+
+    // Particiones sin terminar (pendientes o en proceso en alguna instancia)
+    public int remaining() {
+        Integer open = jdbc.queryForObject(countOpenSql, Integer.class, runId);
+        return open == null ? 0 : open;
+    }
+}
@@ -0,0 +1,66 @@
+package com.liverpool.imageValidator.utils;
+
+// Filtro de Bloom sobre SKUs (FNV-64 + doble hashing). Un "no" es definitivo; un "sí" puede ser falso positivo.
+public final class BloomFilter {
+
+    private final long[] words;
+    private final int hashes;
+
+    private BloomFilter(long[] words, int hashes) {
+        this.words = words;
+        this.hashes = hashes;
+    }
+
+    public static BloomFilter create(int expected, int bitsPerEntry) {
+        int bits = Math.max(64, expected * Math.max(1, bitsPerEntry));
+        int hashes = Math.max(1, (int) Math.round(bitsPerEntry * Math.log(2)));
+        return new BloomFilter(new long[(bits + 63) >>> 6], hashes);
+    }
+
+    public static BloomFilter of(long[] words, int hashes) {
+        return new BloomFilter(words, hashes);
+    }
+
+    public void add(String sku) {
+        long hash = hash(sku);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long bits = (long) words.length << 6;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) (((h1 + (long) i * h2) & Long.MAX_VALUE) % bits);
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(String sku) {
+        long hash = hash(sku);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long bits = (long) words.length << 6;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) (((h1 + (long) i * h2) & Long.MAX_VALUE) % bits);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long[] words() {
+        return words;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    private static long hash(String sku) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < sku.length(); i++) {
+            hash = (hash ^ sku.charAt(i)) * 0x100000001b3L;
+        }
+        // avalancha final para que los 32 bits altos y bajos sean independientes
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
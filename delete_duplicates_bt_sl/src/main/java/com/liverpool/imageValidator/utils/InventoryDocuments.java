@@ -0,0 +1,94 @@
+package com.liverpool.imageValidator.utils;
+
+import com.liverpool.imageValidator.entity.Inventory;
+import com.liverpool.imageValidator.repository.InventoryBulkRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Transformaciones puras de un documento de inventario (sin Mongo), compartidas por los
+// servicios y los benchmarks de JMH.
+public final class InventoryDocuments {
+
+    private InventoryDocuments() {
+    }
+
+    // Deja la entrada online como {storeId: online, stock: 0} y regresa el caso aplicado
+    // (InventoryBulkRepository.CASE_EMPTY_LIST / CASE_MISSING_ONLINE / CASE_STALE_ONLINE)
+    public static int fixOnlineEntry(Inventory inventoryDoc) {
+        List<Object> inventoryList = inventoryDoc.getInventory();
+
+        if (inventoryList == null || inventoryList.isEmpty()) {
+            // Case 2
+            inventoryList = new ArrayList<>();
+            inventoryList.add(onlineEntry());
+            inventoryDoc.setInventory(inventoryList);
+            return InventoryBulkRepository.CASE_EMPTY_LIST;
+        }
+
+        boolean hasOnline = inventoryList.stream()
+                .filter(item -> item instanceof Map)
+                .anyMatch(item -> "online".equals(((Map<?, ?>) item).get("storeId")));
+        if (hasOnline) {
+            // Case 4: clean only the online entry, removing extra fields but keep others unchanged
+            List<Object> cleanedList = new ArrayList<>();
+            for (Object item : inventoryList) {
+                if (item instanceof Map && "online".equals(((Map<?, ?>) item).get("storeId"))) {
+                    cleanedList.add(onlineEntry());
+                } else {
+                    cleanedList.add(item);
+                }
+            }
+            inventoryDoc.setInventory(cleanedList);
+            return InventoryBulkRepository.CASE_STALE_ONLINE;
+        }
+
+        // Case 3
+        inventoryList.add(onlineEntry());
+        inventoryDoc.setInventory(inventoryList);
+        return InventoryBulkRepository.CASE_MISSING_ONLINE;
+    }
+
+    // Las entradas online conservan solo storeId y stock; las tiendas físicas quedan igual
+    @SuppressWarnings("unchecked")
+    public static List<Object> cleanOnlineEntries(List<Object> originalInventory) {
+        List<Object> updatedInventory = new ArrayList<>();
+        for (Object obj : originalInventory) {
+            if (obj instanceof Map) {
+                Map<String, Object> inv = (Map<String, Object>) obj;
+
+                // ✅ Only clean entries where storeId == "online"
+                if (isOnline(inv)) {
+                    updatedInventory.add(cleanOnlineEntry(inv));
+                } else {
+                    // keep all fields as is for physical stores
+                    updatedInventory.add(inv);
+                }
+            }
+        }
+        return updatedInventory;
+    }
+
+    public static boolean isOnline(Map<?, ?> entry) {
+        return "online".equalsIgnoreCase(String.valueOf(entry.get("storeId")));
+    }
+
+    // Entrada online solo con storeId y stock (si existía)
+    public static Map<String, Object> cleanOnlineEntry(Map<String, Object> entry) {
+        Map<String, Object> cleaned = new HashMap<>();
+        cleaned.put("storeId", entry.get("storeId"));
+        if (entry.containsKey("stock")) {
+            cleaned.put("stock", entry.get("stock"));
+        }
+        return cleaned;
+    }
+
+    private static Map<String, Object> onlineEntry() {
+        Map<String, Object> onlineStore = new HashMap<>();
+        onlineStore.put("storeId", "online");
+        onlineStore.put("stock", 0);
+        return onlineStore;
+    }
+}
@@ -0,0 +1,42 @@
+package com.liverpool.imageValidator.utils;
+
+import java.util.Arrays;
+
+// Lista creciente de longs primitivos
+public class LongArrayList {
+
+    private long[] values;
+    private int size;
+
+    public LongArrayList() {
+        this(1024);
+    }
+
+    public LongArrayList(int capacity) {
+        this.values = new long[Math.max(16, capacity)];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1));
+        }
+        values[size++] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Ordena y elimina repetidos; regresa un arreglo del tamaño exacto
+    public long[] toSortedUniqueArray() {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique);
+    }
+}
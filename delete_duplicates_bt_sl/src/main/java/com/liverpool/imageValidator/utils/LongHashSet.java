@@ -0,0 +1,81 @@
+package com.liverpool.imageValidator.utils;
+
+// Set de longs primitivos con direccionamiento abierto (sin boxing).
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int size;
+    private int threshold;
+    private boolean hasZero;
+
+    public LongHashSet() {
+        this(1024);
+    }
+
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int idx = mix(key) & mask;
+        while (keys[idx] != EMPTY) {
+            if (keys[idx] == key) return false;
+            idx = (idx + 1) & mask;
+        }
+        keys[idx] = key;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) return hasZero;
+        int mask = keys.length - 1;
+        int idx = mix(key) & mask;
+        while (keys[idx] != EMPTY) {
+            if (keys[idx] == key) return true;
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int idx = mix(key) & mask;
+            while (keys[idx] != EMPTY) {
+                idx = (idx + 1) & mask;
+            }
+            keys[idx] = key;
+        }
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
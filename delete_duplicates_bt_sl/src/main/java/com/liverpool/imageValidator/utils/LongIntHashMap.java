@@ -0,0 +1,93 @@
+package com.liverpool.imageValidator.utils;
+
+// Mapa long -> int con direccionamiento abierto (sin boxing). Las llaves 0 no se admiten
+// porque marcan una celda vacía; SkuCodec nunca produce 0 para un SKU válido.
+public class LongIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int threshold;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    public LongIntHashMap() {
+        this(1024);
+    }
+
+    public LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) throw new IllegalArgumentException("key 0 not supported");
+        int mask = keys.length - 1;
+        int idx = LongHashSet.mix(key) & mask;
+        while (keys[idx] != EMPTY) {
+            if (keys[idx] == key) {
+                values[idx] = value;
+                return;
+            }
+            idx = (idx + 1) & mask;
+        }
+        keys[idx] = key;
+        values[idx] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public int get(long key) {
+        if (key == EMPTY) return MISSING;
+        int mask = keys.length - 1;
+        int idx = LongHashSet.mix(key) & mask;
+        while (keys[idx] != EMPTY) {
+            if (keys[idx] == key) return values[idx];
+            idx = (idx + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int idx = LongHashSet.mix(oldKeys[i]) & mask;
+            while (keys[idx] != EMPTY) {
+                idx = (idx + 1) & mask;
+            }
+            keys[idx] = oldKeys[i];
+            values[idx] = oldValues[i];
+        }
+    }
+}
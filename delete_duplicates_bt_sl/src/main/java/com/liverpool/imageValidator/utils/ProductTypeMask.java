@@ -0,0 +1,47 @@
+package com.liverpool.imageValidator.utils;
+
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+
+import java.util.List;
+
+// Tipos de producto de un SKU en un int. bit 0: PRODUCT_TYPE 0 (BT), bit 1: PRODUCT_TYPE 1 (SL),
+// bit 2: cualquier otro tipo, negativos incluidos. 0 = sin filas en ATG (no es candidato).
+// Los otros tipos no se distinguen entre sí: para la clasificación todos van a Others.
+public final class ProductTypeMask {
+
+    public static final int NONE = 0;
+    // PRODUCT_TYPE con el que se expande el bit de otro tipo (nunca 0 ni 1)
+    public static final int OTHER_TYPE = 2;
+
+    private static final int BT_BIT = 1;
+    private static final int SL_BIT = 2;
+    private static final int OTHER_BIT = 4;
+
+    private ProductTypeMask() {
+    }
+
+    public static int merge(int mask, int productType) {
+        if (productType == 0) return mask | BT_BIT;
+        if (productType == 1) return mask | SL_BIT;
+        return mask | OTHER_BIT;
+    }
+
+    public static boolean isBt(int mask) {
+        return (mask & BT_BIT) != 0;
+    }
+
+    public static boolean isSl(int mask) {
+        return (mask & SL_BIT) != 0;
+    }
+
+    public static boolean isOther(int mask) {
+        return (mask & OTHER_BIT) != 0;
+    }
+
+    // Una fila por tipo, en el mismo orden que usa el snapshot de ATG
+    public static void expand(String sku, int mask, List<SkusToDeleteDTO> out) {
+        if ((mask & BT_BIT) != 0) out.add(new SkusToDeleteDTO(sku, 0));
+        if ((mask & SL_BIT) != 0) out.add(new SkusToDeleteDTO(sku, 1));
+        if ((mask & OTHER_BIT) != 0) out.add(new SkusToDeleteDTO(sku, OTHER_TYPE));
+    }
+}
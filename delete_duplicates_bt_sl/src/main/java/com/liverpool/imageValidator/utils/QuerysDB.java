@@ -7,6 +7,20 @@ public final class QuerysDB {
                     "FROM _IUO_SCHE_.ONLINE_INVENTORY oi " +
                     "INNER JOIN _IUO_SCHE_.BTVTA_INVENTORY bt ON oi.SKU_ID = bt.SKU_ID";
 
+    // Páginas del mismo cruce por rango de SKU_ID (modos STREAM y SHARD): cada página es un cursor corto,
+    // así ninguna lectura queda abierta mientras se borra de las mismas tablas (ORA-01555).
+    // Parámetros: último SKU de la página anterior (null en la primera, dos veces) y tamaño de página.
+    private static final String IUO_SKUS_AFTER = "(? IS NULL OR oi.SKU_ID > ?)";
+
+    private static final String IUO_SKUS_PAGE_ORDER = " ORDER BY oi.SKU_ID FETCH FIRST ? ROWS ONLY";
+
+    public static final String SELECT_IUO_SKUS_PAGE =
+            SELECT_IUO_SKUS + " WHERE " + IUO_SKUS_AFTER + IUO_SKUS_PAGE_ORDER;
+
+    // Una partición hash (modo SHARD): ORA_HASH(expr, max_bucket) regresa 0..max_bucket
+    public static final String SELECT_IUO_SKUS_PARTITION_PAGE =
+            SELECT_IUO_SKUS + " WHERE ORA_HASH(oi.SKU_ID, ?) = ? AND " + IUO_SKUS_AFTER + IUO_SKUS_PAGE_ORDER;
+
     public static final String SELECT_IUO_SKUS_MANUAL_PREFIX =
             "SELECT DISTINCT oi.SKU_ID " +
                     "FROM _IUO_SCHE_.ONLINE_INVENTORY oi " +
@@ -15,22 +29,85 @@ public final class QuerysDB {
 
     public static final String SELECT_IUO_SKUS_MANUAL_SUFFIX = ")";
 
-    public static final String SELECT_VALID_SKUS_PREFIX =
-            "SELECT DISTINCT ds.sku_id, ldp.PRODUCT_TYPE " +
-                    "FROM _ATG_CATA_.LP_DCS_Product ldp " +
+    private static final String VALID_SKUS_JOIN =
+            "FROM _ATG_CATA_.LP_DCS_Product ldp " +
                     "INNER JOIN _ATG_CATA_.DCS_PRD_CHLDSKU dpc ON ldp.product_id = dpc.product_id " +
                     "INNER JOIN _ATG_CATA_.LP_DCS_SKU lds ON dpc.SKU_ID = lds.SKU_ID " +
                     "INNER JOIN _ATG_CATA_.DCS_SKU ds ON ds.sku_id = lds.SKU_ID " +
                     "INNER JOIN _ATG_CORE_.DCS_PRICE dp ON dp.sku_id = ds.sku_id AND dp.PRICE_LIST = 'Sale_plist00' " +
-                    "INNER JOIN _ATG_CATA_.DCS_SKU_SITES dss ON dss.SKU_ID = ds.SKU_ID " +
+                    "INNER JOIN _ATG_CATA_.DCS_SKU_SITES dss ON dss.SKU_ID = ds.SKU_ID ";
+
+    private static final String VALID_SKUS_CONDITIONS =
+            "ldp.IS_ACTIVE = 1 AND lds.is_active = 1 AND ldp.IS_MARKET_PLACE = 0";
+
+    public static final String SELECT_VALID_SKUS_PREFIX =
+            "SELECT DISTINCT ds.sku_id, ldp.PRODUCT_TYPE " + VALID_SKUS_JOIN +
                     "WHERE dpc.sku_id IN (";
 
     public static final String SELECT_VALID_SKUS_SUFFIX =
-            ") AND ldp.IS_ACTIVE = 1 AND lds.is_active = 1 AND ldp.IS_MARKET_PLACE = 0";
+            ") AND " + VALID_SKUS_CONDITIONS;
+
+    // Mismo join sin filtro por SKU (snapshot completo de ATG); sin DISTINCT para que las filas fluyan
+    public static final String SELECT_VALID_SKUS_SNAPSHOT =
+            "SELECT ds.sku_id, ldp.PRODUCT_TYPE " + VALID_SKUS_JOIN +
+                    "WHERE " + VALID_SKUS_CONDITIONS;
+
+    // Filtros alternos al IN (...) para SELECT_VALID_SKUS_PREFIX/SUFFIX
+    public static final String VALID_SKUS_ARRAY_FILTER = "SELECT COLUMN_VALUE FROM TABLE(?)";
+
+    // Tabla de staging esperada (ATG):
+    // CREATE GLOBAL TEMPORARY TABLE _STAGE_TABLE_ (SKU_ID VARCHAR2(40)) ON COMMIT DELETE ROWS
+    public static final String VALID_SKUS_STAGING_FILTER = "SELECT SKU_ID FROM _STAGE_TABLE_";
+
+    public static final String INSERT_STAGING_SKU = "INSERT INTO _STAGE_TABLE_ (SKU_ID) VALUES (?)";
+
+    // Filas según las estadísticas del optimizador (owner y tabla en mayúsculas)
+    public static final String SELECT_TABLE_NUM_ROWS =
+            "SELECT NUM_ROWS FROM ALL_TABLES WHERE OWNER = ? AND TABLE_NAME = ?";
+
+    // Texto constante para JDBC batch: un SKU por ejecución
+    public static final String DELETE_BY_SKU = "DELETE FROM _TABLE_ WHERE SKU_ID = ?";
 
     public static final String ONLINE_INVENTORY_TABLE = "_IUO_SCHE_.ONLINE_INVENTORY";
 
     public static final String BTVTA_INVENTORY_TABLE = "_IUO_SCHE_.BTVTA_INVENTORY";
+
+    // Tabla de leases del modo SHARD, en el esquema de IUO (shard.leaseTable)
+    public static final String LEASE_TABLE = "_IUO_SCHE_._LEASE_NAME_";
+
+    // CREATE TABLE _LEASE_TABLE_ (RUN_ID VARCHAR2(64), PARTITION_NO NUMBER(6), OWNER VARCHAR2(128),
+    //   LEASE_UNTIL NUMBER(19), STATUS VARCHAR2(10), PRIMARY KEY (RUN_ID, PARTITION_NO))
+    // LEASE_UNTIL en epoch millis; STATUS: PENDING | RUNNING | DONE
+    public static final String INSERT_LEASE =
+            "INSERT INTO _LEASE_TABLE_ (RUN_ID, PARTITION_NO, OWNER, LEASE_UNTIL, STATUS) VALUES (?, ?, NULL, 0, 'PENDING')";
+
+    public static final String COUNT_LEASES = "SELECT COUNT(*) FROM _LEASE_TABLE_ WHERE RUN_ID = ?";
+
+    public static final String COUNT_OPEN_LEASES = "SELECT COUNT(*) FROM _LEASE_TABLE_ WHERE RUN_ID = ? AND STATUS <> 'DONE'";
+
+    private static final String LEASE_CLAIMABLE =
+            "(STATUS = 'PENDING' OR (STATUS = 'RUNNING' AND LEASE_UNTIL < ?))";
+
+    public static final String SELECT_CLAIMABLE_LEASES =
+            "SELECT PARTITION_NO FROM _LEASE_TABLE_ WHERE RUN_ID = ? AND " + LEASE_CLAIMABLE + " ORDER BY PARTITION_NO";
+
+    // Solo una instancia ve 1 fila actualizada; las demás 0
+    public static final String CLAIM_LEASE =
+            "UPDATE _LEASE_TABLE_ SET OWNER = ?, LEASE_UNTIL = ?, STATUS = 'RUNNING' " +
+                    "WHERE RUN_ID = ? AND PARTITION_NO = ? AND " + LEASE_CLAIMABLE;
+
+    public static final String RENEW_LEASE =
+            "UPDATE _LEASE_TABLE_ SET LEASE_UNTIL = ? " +
+                    "WHERE RUN_ID = ? AND PARTITION_NO = ? AND OWNER = ? AND STATUS = 'RUNNING'";
+
+    public static final String COMPLETE_LEASE =
+            "UPDATE _LEASE_TABLE_ SET STATUS = 'DONE', LEASE_UNTIL = ? " +
+                    "WHERE RUN_ID = ? AND PARTITION_NO = ? AND OWNER = ? AND STATUS = 'RUNNING'";
+
+    // Vence el lease de inmediato para que otra instancia retome la partición
+    public static final String RELEASE_LEASE =
+            "UPDATE _LEASE_TABLE_ SET LEASE_UNTIL = 0 " +
+                    "WHERE RUN_ID = ? AND PARTITION_NO = ? AND OWNER = ? AND STATUS = 'RUNNING'";
 }
 
 
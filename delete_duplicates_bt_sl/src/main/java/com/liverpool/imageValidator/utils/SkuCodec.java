@@ -0,0 +1,60 @@
+package com.liverpool.imageValidator.utils;
+
+// Codifica SKUs numéricos (hasta 17 dígitos) en un long sin perder ceros a la izquierda.
+// El orden numérico de los valores codificados es el mismo que el orden lexicográfico
+// de los Strings originales, por lo que un long[] ordenado equivale a Collections.sort.
+public final class SkuCodec {
+
+    public static final long NOT_PACKABLE = -1L;
+
+    private static final int MAX_DIGITS = 17;
+    private static final int LENGTH_BITS = 5;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    private static final long[] POW10 = new long[MAX_DIGITS + 1];
+
+    static {
+        POW10[0] = 1L;
+        for (int i = 1; i <= MAX_DIGITS; i++) {
+            POW10[i] = POW10[i - 1] * 10L;
+        }
+    }
+
+    private SkuCodec() {
+    }
+
+    // Dígitos alineados a la izquierda (relleno con ceros) y la longitud en los bits bajos
+    public static long pack(String sku) {
+        if (sku == null) return NOT_PACKABLE;
+        int len = sku.length();
+        if (len == 0 || len > MAX_DIGITS) return NOT_PACKABLE;
+
+        long value = 0L;
+        for (int i = 0; i < len; i++) {
+            char c = sku.charAt(i);
+            if (c < '0' || c > '9') return NOT_PACKABLE;
+            value = value * 10L + (c - '0');
+        }
+        return ((value * POW10[MAX_DIGITS - len]) << LENGTH_BITS) | len;
+    }
+
+    public static String unpack(long packed) {
+        char[] out = new char[length(packed)];
+        writeDigits(packed, out, 0);
+        return new String(out);
+    }
+
+    public static int length(long packed) {
+        return (int) (packed & LENGTH_MASK);
+    }
+
+    // Escribe los dígitos en buf a partir de offset y regresa la longitud escrita
+    public static int writeDigits(long packed, char[] buf, int offset) {
+        int len = length(packed);
+        long value = (packed >>> LENGTH_BITS) / POW10[MAX_DIGITS - len];
+        for (int i = offset + len - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + (value % 10L));
+            value /= 10L;
+        }
+        return len;
+    }
+}
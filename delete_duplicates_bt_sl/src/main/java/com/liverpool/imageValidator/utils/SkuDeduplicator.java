@@ -0,0 +1,33 @@
+package com.liverpool.imageValidator.utils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Detecta SKUs repetidos en un flujo. Los SKUs numéricos se guardan como long
+// primitivo; los no numéricos caen a un HashSet de Strings.
+public class SkuDeduplicator {
+
+    private final LongHashSet numericSkus;
+    private final Set<String> otherSkus = new HashSet<>();
+
+    public SkuDeduplicator() {
+        this(1 << 16);
+    }
+
+    public SkuDeduplicator(int expected) {
+        this.numericSkus = new LongHashSet(expected);
+    }
+
+    // Regresa true si es la primera vez que se ve el SKU
+    public boolean add(String sku) {
+        long packed = SkuCodec.pack(sku);
+        if (packed != SkuCodec.NOT_PACKABLE) {
+            return numericSkus.add(packed);
+        }
+        return otherSkus.add(sku);
+    }
+
+    public int size() {
+        return numericSkus.size() + otherSkus.size();
+    }
+}
@@ -0,0 +1,80 @@
+package com.liverpool.imageValidator.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+// Lista de SKUs ya ordenada y sin repetidos. Guarda los SKUs numéricos como long
+// codificado (SkuCodec) o, como respaldo, como Strings.
+public final class SortedSkuList {
+
+    private static final SortedSkuList EMPTY = new SortedSkuList(new long[0], null);
+
+    private final long[] packed;
+    private final List<String> strings;
+
+    private SortedSkuList(long[] packed, List<String> strings) {
+        this.packed = packed;
+        this.strings = strings;
+    }
+
+    public static SortedSkuList ofPacked(long[] sortedPacked) {
+        return new SortedSkuList(sortedPacked, null);
+    }
+
+    public static SortedSkuList ofStrings(List<String> sortedSkus) {
+        return new SortedSkuList(null, sortedSkus);
+    }
+
+    public static SortedSkuList empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return packed != null ? packed.length : strings.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public String get(int index) {
+        return packed != null ? SkuCodec.unpack(packed[index]) : strings.get(index);
+    }
+
+    // Una línea por SKU (mismo formato que BufferedWriter.write + newLine)
+    public void writeLines(Writer writer) throws IOException {
+        String lineSeparator = System.lineSeparator();
+        if (packed == null) {
+            for (String sku : strings) {
+                writer.write(sku);
+                writer.write(lineSeparator);
+            }
+            return;
+        }
+        char[] buf = new char[32];
+        for (long sku : packed) {
+            int len = SkuCodec.writeDigits(sku, buf, 0);
+            writer.write(buf, 0, len);
+            writer.write(lineSeparator);
+        }
+    }
+
+    // Vista de solo lectura; los SKUs numéricos se decodifican al leerlos
+    public List<String> asList() {
+        if (packed == null) return Collections.unmodifiableList(strings);
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return SkuCodec.unpack(packed[index]);
+            }
+
+            @Override
+            public int size() {
+                return packed.length;
+            }
+        };
+    }
+}
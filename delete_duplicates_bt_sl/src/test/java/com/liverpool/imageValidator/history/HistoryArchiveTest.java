@@ -0,0 +1,212 @@
+package com.liverpool.imageValidator.history;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.utils.BloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Formato del histórico comprimido: bloques GZIP con prefijo común, índice con rango y filtro de Bloom, LOOKUP
+class HistoryArchiveTest {
+
+    private static final int BLOCK_SIZE = 100;
+
+    @TempDir
+    Path tempDir;
+
+    private HistoryArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getHistory().setFormat("archive");
+        appConfig.getHistory().setArchiveDir(tempDir.toString());
+        appConfig.getHistory().setBlockSize(BLOCK_SIZE);
+        appConfig.getHistory().setBloomBitsPerSku(8);
+        archive = new HistoryArchive(appConfig);
+    }
+
+    // FULL: cada tipo llega ordenado y ocupa varios bloques sin traslape
+    @Test
+    void sortedRunRoundTripsPresentAndAbsentSkus() throws IOException {
+        List<String> bt = skus(1_000_000, 350);
+        List<String> sl = skus(2_000_000, 120);
+        String run;
+        try (HistoryArchive.Writer writer = archive.open("20240601_100000")) {
+            run = writer.getRun();
+            writer.append("BT", bt);
+            writer.append("SL", sl);
+        }
+
+        List<ArchiveBlock> blocks = readIndex(run);
+        assertThat(blocks).extracting(ArchiveBlock::getProductType)
+                .containsExactly("BT", "BT", "BT", "SL", "BT", "SL");
+        assertThat(blocks.get(0).getFirstSku()).isEqualTo(bt.get(0));
+        assertThat(blocks.get(0).getLastSku()).isEqualTo(bt.get(BLOCK_SIZE - 1));
+        assertThat(blocks.get(0).getCount()).isEqualTo(BLOCK_SIZE);
+        assertThat(blocks.get(4).getCount()).isEqualTo(50);
+        assertThat(blocks.get(5).getLastSku()).isEqualTo(sl.get(sl.size() - 1));
+
+        for (String sku : bt) {
+            assertMatches(sku, run, "BT");
+        }
+        for (String sku : sl) {
+            assertMatches(sku, run, "SL");
+        }
+        // impares: dentro del rango de algún bloque pero ausentes (descarta Bloom o la búsqueda en el bloque)
+        for (int i = 0; i < 350; i++) {
+            assertThat(archive.lookup(String.valueOf(1_000_000 + 2 * i + 1))).isEmpty();
+        }
+        assertThat(archive.lookup("999")).isEmpty();
+        assertThat(archive.lookup("3000000")).isEmpty();
+    }
+
+    // STREAM: los SKUs llegan en desorden, cada bloque se ordena y los rangos de los bloques se traslapan
+    @Test
+    void overlappingStreamBlocksRoundTrip() throws IOException {
+        List<String> bt = skus(5_000_000, 500);
+        List<String> arrival = new ArrayList<>(bt);
+        Collections.shuffle(arrival, new Random(7));
+        String run;
+        try (HistoryArchive.Writer writer = archive.open("20240601_110000")) {
+            run = writer.getRun();
+            for (int from = 0; from < arrival.size(); from += 37) {
+                writer.append("BT", arrival.subList(from, Math.min(from + 37, arrival.size())));
+            }
+            writer.append("Others", Collections.singletonList("MKP-1"));
+        }
+
+        List<ArchiveBlock> blocks = readIndex(run);
+        assertThat(blocks).hasSize(6);
+        assertThat(blocks.get(0).getFirstSku().compareTo(blocks.get(1).getLastSku())).isLessThan(0);
+        assertThat(blocks.get(1).getFirstSku().compareTo(blocks.get(0).getLastSku())).isLessThan(0);
+
+        for (String sku : bt) {
+            assertMatches(sku, run, "BT");
+        }
+        assertMatches("MKP-1", run, "Others");
+        for (int i = 0; i < 500; i++) {
+            assertThat(archive.lookup(String.valueOf(5_000_000 + 2 * i + 1))).isEmpty();
+        }
+    }
+
+    @Test
+    void emptyRunWritesAnEmptyIndex() throws IOException {
+        String run;
+        try (HistoryArchive.Writer writer = archive.open("20240601_120000")) {
+            run = writer.getRun();
+        }
+        assertThat(readIndex(run)).isEmpty();
+        assertThat(Files.size(tempDir.resolve("run_" + run + ".skz"))).isZero();
+        assertThat(archive.lookup("1000000")).isEmpty();
+    }
+
+    // Dos corridas en el mismo segundo conservan ambos históricos; LOOKUP las lista de la más antigua a la más nueva
+    @Test
+    void runsInTheSameSecondDoNotOverwriteEachOther() throws IOException {
+        String first;
+        String second;
+        try (HistoryArchive.Writer writer = archive.open("20240601_130000")) {
+            first = writer.getRun();
+            writer.append("BT", Collections.singletonList("123"));
+        }
+        try (HistoryArchive.Writer writer = archive.open("20240601_130000")) {
+            second = writer.getRun();
+            writer.append("SL", Collections.singletonList("123"));
+        }
+
+        assertThat(first).isEqualTo("20240601_130000");
+        assertThat(second).isEqualTo("20240601_130000_001");
+        List<HistoryArchive.Match> matches = archive.lookup("123");
+        assertThat(matches).extracting(HistoryArchive.Match::getRun).containsExactly(first, second);
+        assertThat(matches).extracting(HistoryArchive.Match::getProductType).containsExactly("BT", "SL");
+    }
+
+    @Test
+    void indexEntryRoundTripsItsRangeAndBloomFilter() throws IOException {
+        BloomFilter bloom = BloomFilter.create(3, 8);
+        for (String sku : new String[]{"200", "250", "300"}) {
+            bloom.add(sku);
+        }
+        ArchiveBlock block = new ArchiveBlock("SL", "200", "300", 42L, 17, 3, bloom);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            block.write(out);
+        }
+        ArchiveBlock read = ArchiveBlock.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read.getProductType()).isEqualTo("SL");
+        assertThat(read.getOffset()).isEqualTo(42L);
+        assertThat(read.getLength()).isEqualTo(17);
+        assertThat(read.getCount()).isEqualTo(3);
+        assertThat(read.getBloom().words()).isEqualTo(bloom.words());
+        assertThat(read.getBloom().hashes()).isEqualTo(bloom.hashes());
+        assertThat(read.mayContain("200")).isTrue();
+        assertThat(read.mayContain("250")).isTrue();
+        assertThat(read.mayContain("300")).isTrue();
+        // fuera del rango [first, last] se descarta sin consultar el filtro
+        assertThat(read.mayContain("199")).isFalse();
+        assertThat(read.mayContain("301")).isFalse();
+    }
+
+    // Un "no" del filtro es definitivo y con 8 bits por SKU los falsos positivos quedan en pocos por ciento
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        BloomFilter bloom = BloomFilter.create(10_000, 8);
+        for (int i = 0; i < 10_000; i++) {
+            bloom.add(String.valueOf(2 * i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(bloom.mightContain(String.valueOf(2 * i))).isTrue();
+            if (bloom.mightContain(String.valueOf(2 * i + 1))) falsePositives++;
+        }
+        assertThat(falsePositives).isLessThan(500);
+    }
+
+    private void assertMatches(String sku, String run, String productType) throws IOException {
+        List<HistoryArchive.Match> matches = archive.lookup(sku);
+        assertThat(matches).as(sku).hasSize(1);
+        assertThat(matches.get(0).getRun()).isEqualTo(run);
+        assertThat(matches.get(0).getProductType()).isEqualTo(productType);
+    }
+
+    private List<ArchiveBlock> readIndex(String run) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(tempDir.resolve("run_" + run + ".idx"))))) {
+            in.readInt();
+            in.readInt();
+            int count = in.readInt();
+            List<ArchiveBlock> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blocks.add(ArchiveBlock.read(in));
+            }
+            return blocks;
+        }
+    }
+
+    // SKUs pares ordenados a partir de base (mismo largo, así el orden numérico es el de String)
+    private static List<String> skus(int base, int count) {
+        List<String> skus = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            skus.add(String.valueOf(base + 2 * i));
+        }
+        return skus;
+    }
+}
@@ -0,0 +1,61 @@
+package com.liverpool.imageValidator.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.liverpool.imageValidator.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// En modo SERVICE el proceso corre varias corridas: cada reporte debe traer solo lo de la suya
+class RunMetricsTest {
+
+    private static final String ORACLE_ROWS = RunMetrics.PREFIX + "oracle.rows";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reportCountsOnlyTheCurrentRun() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AppConfig appConfig = new AppConfig();
+        RunMetrics runMetrics = new RunMetrics(registry, appConfig);
+
+        // cada corrida en su directorio: el nombre del reporte tiene resolución de segundos
+        appConfig.getMetrics().setReportDir(tempDir.resolve("first").toString());
+        runMetrics.startRun();
+        runMetrics.recordOracleChunk("BT", 5_000_000L, 100, 100);
+        runMetrics.recordOracleChunk("BT", 5_000_000L, 100, 100);
+        runMetrics.writeReport("FULL");
+        assertThat(reportedCount(tempDir.resolve("first"), ORACLE_ROWS)).isEqualTo(200d);
+
+        appConfig.getMetrics().setReportDir(tempDir.resolve("second").toString());
+        runMetrics.startRun();
+        runMetrics.recordOracleChunk("BT", 5_000_000L, 30, 30);
+        runMetrics.writeReport("FULL");
+        assertThat(reportedCount(tempDir.resolve("second"), ORACLE_ROWS)).isEqualTo(30d);
+
+        // el registro de la aplicación conserva el acumulado del proceso
+        assertThat(registry.get(ORACLE_ROWS).counter().count()).isEqualTo(230d);
+    }
+
+    private static double reportedCount(Path reportDir, String name) throws IOException {
+        Path json;
+        try (Stream<Path> files = Files.list(reportDir)) {
+            json = files.filter(p -> p.toString().endsWith(".json")).findFirst().orElseThrow(IllegalStateException::new);
+        }
+        for (JsonNode meter : new ObjectMapper().readTree(json.toFile()).get("meters")) {
+            if (name.equals(meter.get("name").asText())) {
+                return meter.get("count").asDouble();
+            }
+        }
+        throw new IllegalStateException("Sin " + name + " en " + json);
+    }
+}
@@ -0,0 +1,133 @@
+package com.liverpool.imageValidator.repository;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Modos de validación en ATG (inlist / staging / array) contra H2 como sustituto de Oracle
+class OracleDBRepositoryAtgLookupTest {
+
+    private static final List<String> SKUS = Arrays.asList(
+            "100", "200", "300", "400", "500", "600", "700", "800", "999");
+
+    // 100 está en BT y SL; 500 producto inactivo, 600 marketplace, 700 SKU inactivo, 800 sin precio, 999 no existe
+    private static final List<String> EXPECTED = Arrays.asList("100:0", "100:1", "200:0", "300:1", "400:5");
+
+    private JdbcTemplate jdbc;
+    private AppConfig appConfig;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:atg_lookup;MODE=Oracle;DB_CLOSE_DELAY=-1"));
+        jdbc.execute("DROP ALL OBJECTS");
+        jdbc.execute("CREATE SCHEMA CATA");
+        jdbc.execute("CREATE SCHEMA CORE");
+        jdbc.execute("CREATE TABLE CATA.LP_DCS_PRODUCT (PRODUCT_ID VARCHAR(40), PRODUCT_TYPE INT, IS_ACTIVE INT, IS_MARKET_PLACE INT)");
+        jdbc.execute("CREATE TABLE CATA.DCS_PRD_CHLDSKU (PRODUCT_ID VARCHAR(40), SKU_ID VARCHAR(40))");
+        jdbc.execute("CREATE TABLE CATA.LP_DCS_SKU (SKU_ID VARCHAR(40), IS_ACTIVE INT)");
+        jdbc.execute("CREATE TABLE CATA.DCS_SKU (SKU_ID VARCHAR(40))");
+        jdbc.execute("CREATE TABLE CATA.DCS_SKU_SITES (SKU_ID VARCHAR(40))");
+        jdbc.execute("CREATE TABLE CORE.DCS_PRICE (SKU_ID VARCHAR(40), PRICE_LIST VARCHAR(40))");
+        jdbc.execute("CREATE TABLE CATA.SKU_LOOKUP_STAGE (SKU_ID VARCHAR(40))");
+
+        product("BT1", 0, 1, 0);
+        product("SL1", 1, 1, 0);
+        product("OT1", 5, 1, 0);
+        product("BT_OFF", 0, 0, 0);
+        product("SL_MKP", 1, 1, 1);
+        sku("100", "BT1", 1, true);
+        sku("100", "SL1", 1, true);
+        sku("200", "BT1", 1, true);
+        sku("300", "SL1", 1, true);
+        sku("400", "OT1", 1, true);
+        sku("500", "BT_OFF", 1, true);
+        sku("600", "SL_MKP", 1, true);
+        sku("700", "BT1", 0, true);
+        sku("800", "BT1", 1, false);
+
+        appConfig = new AppConfig();
+        appConfig.setAtgCataSchema("CATA");
+        appConfig.setAtgCoreSchema("CORE");
+        appConfig.setIuoSchema("IUO");
+        appConfig.setBatchSize(2);
+        appConfig.getAtgLookup().setStagingTable("CATA.SKU_LOOKUP_STAGE");
+    }
+
+    @Test
+    void inListAndStagingReturnTheSameRows() {
+        assertThat(lookup(repository("inlist"), SKUS)).isEqualTo(EXPECTED);
+        assertThat(lookup(repository("staging"), SKUS)).isEqualTo(EXPECTED);
+        // el rollback deja vacía la tabla de staging
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM CATA.SKU_LOOKUP_STAGE", Integer.class)).isZero();
+    }
+
+    // H2 no es una OracleConnection: createOracleArray falla igual que sin el tipo de colección en ATG
+    @Test
+    void arrayModeFallsBackToInListWhenBindingFails() {
+        OracleDBRepository repository = spy(repository("array"));
+        assertThat(repository.lookupSliceSize()).isEqualTo(appConfig.getAtgLookup().getSliceSize());
+
+        assertThat(lookup(repository, SKUS)).isEqualTo(EXPECTED);
+        assertThat(repository.lookupSliceSize()).isEqualTo(appConfig.getBatchSize());
+
+        // las siguientes consultas van directo al IN-list
+        assertThat(lookup(repository, SKUS)).isEqualTo(EXPECTED);
+        verify(repository, times(1)).findValidSkusByArray(anyList(), any());
+    }
+
+    // El respaldo al IN-list dura una corrida: después de resetRunState se vuelve a intentar el arreglo
+    @Test
+    void resetRunStateRetriesArrayMode() {
+        OracleDBRepository repository = spy(repository("array"));
+        assertThat(lookup(repository, SKUS)).isEqualTo(EXPECTED);
+        assertThat(repository.lookupSliceSize()).isEqualTo(appConfig.getBatchSize());
+
+        repository.resetRunState();
+        assertThat(repository.lookupSliceSize()).isEqualTo(appConfig.getAtgLookup().getSliceSize());
+        assertThat(lookup(repository, SKUS)).isEqualTo(EXPECTED);
+        verify(repository, times(2)).findValidSkusByArray(anyList(), any());
+    }
+
+    private OracleDBRepository repository(String mode) {
+        appConfig.getAtgLookup().setMode(mode);
+        SqlShapeRegistry sqlShapes = new SqlShapeRegistry(appConfig);
+        sqlShapes.init();
+        return new OracleDBRepository(jdbc, jdbc, appConfig, sqlShapes);
+    }
+
+    private static List<String> lookup(OracleDBRepository repository, List<String> skus) {
+        List<String> rows = new ArrayList<>();
+        repository.findValidSkus(skus, dto -> rows.add(dto.getSkuId() + ":" + dto.getProductType()));
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private void product(String productId, int productType, int active, int marketPlace) {
+        jdbc.update("INSERT INTO CATA.LP_DCS_PRODUCT VALUES (?, ?, ?, ?)", productId, productType, active, marketPlace);
+    }
+
+    private void sku(String skuId, String productId, int active, boolean salePrice) {
+        jdbc.update("INSERT INTO CATA.DCS_PRD_CHLDSKU VALUES (?, ?)", productId, skuId);
+        if (jdbc.queryForObject("SELECT COUNT(*) FROM CATA.DCS_SKU WHERE SKU_ID = ?", Integer.class, skuId) > 0) return;
+        jdbc.update("INSERT INTO CATA.LP_DCS_SKU VALUES (?, ?)", skuId, active);
+        jdbc.update("INSERT INTO CATA.DCS_SKU VALUES (?)", skuId);
+        jdbc.update("INSERT INTO CATA.DCS_SKU_SITES VALUES (?)", skuId);
+        if (salePrice) {
+            jdbc.update("INSERT INTO CORE.DCS_PRICE VALUES (?, 'Sale_plist00')", skuId);
+        }
+    }
+}
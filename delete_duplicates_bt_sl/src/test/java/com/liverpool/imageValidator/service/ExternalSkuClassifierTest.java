@@ -0,0 +1,127 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.models.SkuClassification;
+import com.liverpool.imageValidator.models.SkusToDeleteDTO;
+import com.liverpool.imageValidator.utils.SortedSkuList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// La clasificación externa (corridas en disco + merge) debe escribir los mismos bytes que el
+// camino en memoria de SkuClassificationEngine con SortedSkuList.writeLines
+class ExternalSkuClassifierTest {
+
+    // pocas filas por corrida y fanIn=2: muchas corridas y varios niveles de merge intermedio
+    private static final int RUN_SIZE = 37;
+    private static final int FAN_IN = 2;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void numericSkusMatchTheInMemoryFiles() throws IOException {
+        assertSameOutput(rows(false), "numeric");
+    }
+
+    // un solo SKU no numérico manda al motor en memoria por el cálculo con HashSet
+    @Test
+    void mixedSkusMatchTheInMemoryFiles() throws IOException {
+        assertSameOutput(rows(true), "mixed");
+    }
+
+    @Test
+    void emptyInputWritesEmptyFiles() throws IOException {
+        assertSameOutput(Collections.<SkusToDeleteDTO>emptyList(), "empty");
+    }
+
+    private void assertSameOutput(List<SkusToDeleteDTO> rows, String name) throws IOException {
+        Path memory = Files.createDirectories(tempDir.resolve(name + "-memory"));
+        Path external = Files.createDirectories(tempDir.resolve(name + "-external"));
+        Path spill = tempDir.resolve(name + "-spill");
+
+        SkuClassification classification = new SkuClassificationEngine().classify(rows);
+        write(classification.getBt(), memory.resolve("bt.txt"));
+        write(classification.getSl(), memory.resolve("sl.txt"));
+        write(classification.getOthers(), memory.resolve("others.txt"));
+
+        ExternalSkuClassifier.Result result;
+        try (ExternalSkuClassifier classifier = new ExternalSkuClassifier(spill, RUN_SIZE, FAN_IN)) {
+            classifier.addAll(rows);
+            result = classifier.finish(external.resolve("bt.txt"), external.resolve("sl.txt"), external.resolve("others.txt"));
+        }
+
+        for (String file : new String[]{"bt.txt", "sl.txt", "others.txt"}) {
+            assertThat(Files.readAllBytes(external.resolve(file)))
+                    .as(name + "/" + file)
+                    .isEqualTo(Files.readAllBytes(memory.resolve(file)));
+        }
+        assertThat(result.getBt()).isEqualTo(classification.getBt().size());
+        assertThat(result.getSl()).isEqualTo(classification.getSl().size());
+        assertThat(result.getOthers()).isEqualTo(classification.getOthers().size());
+        assertThat(result.getDuplicated()).isEqualTo(classification.getDuplicated());
+        assertThat(result.getBtRows()).isEqualTo(classification.getBtRows());
+        assertThat(result.getSlRows()).isEqualTo(classification.getSlRows());
+        assertThat(result.getOthersRows()).isEqualTo(classification.getOthersRows());
+        // close borra las corridas y su directorio temporal
+        try (Stream<Path> left = Files.list(spill)) {
+            assertThat(left.count()).isZero();
+        }
+    }
+
+    // Filas de ATG con SKUs en BT y SL, tipos Others, filas repetidas y longitudes distintas
+    // (orden de String: "10" < "9"); con mixed agrega SKUs no numéricos
+    private static List<SkusToDeleteDTO> rows(boolean mixed) {
+        Random random = new Random(42);
+        List<SkusToDeleteDTO> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String sku = sku(random, mixed);
+            int roll = random.nextInt(100);
+            int productType = roll < 45 ? 0 : roll < 90 ? 1 : roll < 95 ? 2 : 7;
+            rows.add(new SkusToDeleteDTO(sku, productType));
+            if (roll % 10 == 0) {
+                rows.add(new SkusToDeleteDTO(sku, productType));
+            }
+        }
+        rows.add(new SkusToDeleteDTO("9", 0));
+        rows.add(new SkusToDeleteDTO("10", 1));
+        rows.add(new SkusToDeleteDTO("100", 0));
+        rows.add(new SkusToDeleteDTO("100", 1));
+        rows.add(new SkusToDeleteDTO("0042", 1));
+        rows.add(new SkusToDeleteDTO("1000000000000", 0));
+        Collections.shuffle(rows, random);
+        return rows;
+    }
+
+    private static String sku(Random random, boolean mixed) {
+        int id = random.nextInt(700);
+        if (mixed && id % 9 == 0) {
+            return (id % 2 == 0 ? "MKP-" : "a") + id;
+        }
+        switch (id % 3) {
+            case 0:
+                return String.valueOf(id);
+            case 1:
+                return String.valueOf(1_000_000L + id);
+            default:
+                return "00" + id;
+        }
+    }
+
+    private static void write(SortedSkuList list, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            list.writeLines(writer);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.liverpool.imageValidator.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reapertura del cursor después de un error transitorio: continúa tras el último _id, no desde el inicio
+class ReactiveMongoStageTest {
+
+    @Test
+    void firstSubscriptionUsesTheOriginalQuery() {
+        Query query = query();
+        assertThat(ReactiveMongoStage.resumeAfter(query, null)).isSameAs(query);
+    }
+
+    @Test
+    void resumedQueryStartsAfterTheLastIdAndKeepsFilterProjectionAndBatchSize() {
+        Query query = query();
+        Query resumed = ReactiveMongoStage.resumeAfter(query, "1000123");
+
+        assertThat(resumed.getQueryObject()).isEqualTo(new Document("$and", Arrays.asList(
+                query.getQueryObject(), new Document("_id", new Document("$gt", "1000123")))));
+        assertThat(resumed.getFieldsObject()).isEqualTo(new Document("inventory", 1));
+        assertThat(resumed.getSortObject()).isEqualTo(new Document("_id", 1));
+        assertThat(resumed.getMeta().getCursorBatchSize()).isEqualTo(500);
+        // la consulta original no cambia: un segundo reintento parte de ella otra vez
+        assertThat(query.getQueryObject()).isEqualTo(new Document("status", "ONLINE"));
+    }
+
+    private static Query query() {
+        Query query = new BasicQuery(new Document("status", "ONLINE"), new Document("inventory", 1));
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.cursorBatchSize(500);
+        return query;
+    }
+}
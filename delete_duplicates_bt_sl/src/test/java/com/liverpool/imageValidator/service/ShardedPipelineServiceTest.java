@@ -0,0 +1,206 @@
+package com.liverpool.imageValidator.service;
+
+import com.liverpool.imageValidator.config.AppConfig;
+import com.liverpool.imageValidator.repository.OracleDBRepository;
+import com.liverpool.imageValidator.repository.SqlShapeRegistry;
+import com.liverpool.imageValidator.shard.PartitionLeaseCoordinator;
+import com.liverpool.imageValidator.utils.QuerysDB;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Modo SHARD de punta a punta: varias instancias en hilos sobre el mismo runId en H2, con la
+// consulta paginada por ORA_HASH real y el pipeline STREAM sustituido por un registro de SKUs
+class ShardedPipelineServiceTest {
+
+    private static final String RUN_ID = "run-shard";
+    private static final int PARTITIONS = 8;
+    private static final int INSTANCES = 3;
+    private static final String TABLE = QuerysDB.LEASE_TABLE
+            .replace("_IUO_SCHE_", "IUO").replace("_LEASE_NAME_", "DD_PARTITION_LEASE");
+
+    private JdbcTemplate jdbc;
+    private Set<String> overlap;
+    private Queue<List<String>> processed;
+    private Queue<List<String>> failed;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:sharded_pipeline;MODE=Oracle;DB_CLOSE_DELAY=-1"));
+        jdbc.execute("DROP ALL OBJECTS");
+        jdbc.execute("CREATE SCHEMA IUO");
+        jdbc.execute("CREATE TABLE IUO.ONLINE_INVENTORY (SKU_ID VARCHAR2(40))");
+        jdbc.execute("CREATE TABLE IUO.BTVTA_INVENTORY (SKU_ID VARCHAR2(40))");
+        jdbc.execute("CREATE TABLE " + TABLE + " (RUN_ID VARCHAR2(64), PARTITION_NO NUMBER(6), OWNER VARCHAR2(128),"
+                + " LEASE_UNTIL NUMBER(19), STATUS VARCHAR2(10), PRIMARY KEY (RUN_ID, PARTITION_NO))");
+
+        // 1000..1299 en ONLINE_INVENTORY; múltiplos de 5 no están en BTVTA y 9000.. solo está en BTVTA
+        overlap = new HashSet<>();
+        List<Object[]> online = new ArrayList<>();
+        List<Object[]> btvta = new ArrayList<>();
+        for (int i = 1000; i < 1300; i++) {
+            String sku = String.valueOf(i);
+            online.add(new Object[]{sku});
+            if (i % 5 != 0) {
+                btvta.add(new Object[]{sku});
+                overlap.add(sku);
+            }
+        }
+        for (int i = 9000; i < 9050; i++) {
+            btvta.add(new Object[]{String.valueOf(i)});
+        }
+        jdbc.batchUpdate("INSERT INTO IUO.ONLINE_INVENTORY (SKU_ID) VALUES (?)", online);
+        jdbc.batchUpdate("INSERT INTO IUO.BTVTA_INVENTORY (SKU_ID) VALUES (?)", btvta);
+
+        processed = new ConcurrentLinkedQueue<>();
+        failed = new ConcurrentLinkedQueue<>();
+    }
+
+    @Test
+    void concurrentInstancesProcessEachPartitionExactlyOnce() throws Exception {
+        List<Long> deleted = runInstances(INSTANCES, null);
+
+        assertProcessedExactlyOnce();
+        assertThat(deleted.stream().mapToLong(Long::longValue).sum()).isEqualTo(overlap.size());
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM " + TABLE + " WHERE RUN_ID = ? AND STATUS = 'DONE'",
+                Integer.class, RUN_ID)).isEqualTo(PARTITIONS);
+    }
+
+    // Una instancia caída deja su partición RUNNING sin renovar: las demás esperan (poll) y la retoman al vencer
+    @Test
+    void expiredLeaseOfACrashedInstanceIsTakenOver() throws Exception {
+        PartitionLeaseCoordinator crashed = new PartitionLeaseCoordinator(jdbc, TABLE, RUN_ID, "crashed",
+                1500L, Clock.systemUTC());
+        crashed.register(PARTITIONS);
+        int abandoned = crashed.claim();
+        assertThat(abandoned).isNotNegative();
+
+        runInstances(INSTANCES, null);
+
+        assertProcessedExactlyOnce();
+        Map<String, Object> lease = jdbc.queryForMap("SELECT OWNER, STATUS FROM " + TABLE
+                + " WHERE RUN_ID = ? AND PARTITION_NO = ?", RUN_ID, abandoned);
+        assertThat(lease.get("STATUS")).isEqualTo("DONE");
+        assertThat(lease.get("OWNER")).isNotEqualTo("crashed");
+        // la instancia original ya no puede cerrar ni renovar la partición que perdió
+        assertThat(crashed.complete(abandoned)).isFalse();
+        assertThat(crashed.renew(abandoned)).isFalse();
+    }
+
+    // Si el pipeline falla, la partición se libera y la procesa otra instancia; la que falló termina con error
+    @Test
+    void failedPartitionIsReleasedAndProcessedByAnotherInstance() throws Exception {
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        List<Future<Long>> results = startInstances(INSTANCES, failOnce);
+
+        int errors = 0;
+        for (Future<Long> result : results) {
+            try {
+                result.get(60, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).hasMessage("falla simulada");
+                errors++;
+            }
+        }
+
+        assertThat(errors).isEqualTo(1);
+        assertThat(failed).hasSize(1);
+        assertProcessedExactlyOnce();
+    }
+
+    private void assertProcessedExactlyOnce() {
+        // una ejecución exitosa del pipeline por partición, aunque la partición quede vacía
+        assertThat(processed).hasSize(PARTITIONS);
+        List<String> all = new ArrayList<>();
+        processed.forEach(all::addAll);
+        assertThat(all).doesNotHaveDuplicates();
+        assertThat(all).containsExactlyInAnyOrderElementsOf(overlap);
+    }
+
+    private List<Long> runInstances(int instances, AtomicBoolean failOnce) throws Exception {
+        List<Long> deleted = new ArrayList<>();
+        for (Future<Long> result : startInstances(instances, failOnce)) {
+            deleted.add(result.get(60, TimeUnit.SECONDS));
+        }
+        return deleted;
+    }
+
+    // Todas las instancias arrancan a la vez para que compitan por las mismas particiones
+    private List<Future<Long>> startInstances(int instances, AtomicBoolean failOnce) {
+        ExecutorService pool = Executors.newFixedThreadPool(instances);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            ShardedPipelineService service = instance("host-" + i, failOnce);
+            results.add(pool.submit((Callable<Long>) () -> {
+                start.await();
+                return service.run(RUN_ID);
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        return results;
+    }
+
+    private ShardedPipelineService instance(String owner, AtomicBoolean failOnce) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setIuoSchema("IUO");
+        appConfig.setAtgCataSchema("CATA");
+        appConfig.setAtgCoreSchema("CORE");
+        // páginas chicas: varias vueltas del keyset por partición
+        appConfig.setIuoPageSize(7);
+        appConfig.getShard().setPartitions(PARTITIONS);
+        appConfig.getShard().setOwner(owner);
+        appConfig.getShard().setLeaseSeconds(60);
+        appConfig.getShard().setRenewSeconds(1);
+        appConfig.getShard().setPollSeconds(1);
+
+        SqlShapeRegistry sqlShapes = new SqlShapeRegistry(appConfig);
+        sqlShapes.init();
+        OracleDBRepository repository = new OracleDBRepository(jdbc, jdbc, appConfig, sqlShapes);
+        return new ShardedPipelineService(jdbc, repository, new RecordingPipeline(failOnce), appConfig);
+    }
+
+    // Sustituye al pipeline STREAM: consume la fuente de la partición y cuenta cada SKU como borrado
+    private class RecordingPipeline extends StreamingPipelineService {
+
+        private final AtomicBoolean failOnce;
+
+        RecordingPipeline(AtomicBoolean failOnce) {
+            super(null, null, null, null, null, null, null, null);
+            this.failOnce = failOnce;
+        }
+
+        @Override
+        public long run(SkuSource source, long expectedSkus) throws Exception {
+            List<String> skus = new ArrayList<>();
+            source.emit(skus::add);
+            if (failOnce != null && failOnce.compareAndSet(true, false)) {
+                failed.add(skus);
+                throw new IllegalStateException("falla simulada");
+            }
+            processed.add(skus);
+            return skus.size();
+        }
+    }
+}
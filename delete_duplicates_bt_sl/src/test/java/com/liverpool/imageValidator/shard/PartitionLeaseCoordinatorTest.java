@@ -0,0 +1,152 @@
+package com.liverpool.imageValidator.shard;
+
+import com.liverpool.imageValidator.utils.QuerysDB;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Varias instancias (coordinadores con distinto owner) sobre una sola tabla de leases en H2
+class PartitionLeaseCoordinatorTest {
+
+    private static final String RUN_ID = "run-1";
+    private static final long LEASE_MS = 60_000L;
+    private static final String TABLE = QuerysDB.LEASE_TABLE
+            .replace("_IUO_SCHE_", "IUO").replace("_LEASE_NAME_", "DD_PARTITION_LEASE");
+
+    private JdbcTemplate jdbc;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:partition_lease;MODE=Oracle;DB_CLOSE_DELAY=-1"));
+        jdbc.execute("DROP ALL OBJECTS");
+        jdbc.execute("CREATE SCHEMA IUO");
+        jdbc.execute("CREATE TABLE " + TABLE + " (RUN_ID VARCHAR2(64), PARTITION_NO NUMBER(6), OWNER VARCHAR2(128),"
+                + " LEASE_UNTIL NUMBER(19), STATUS VARCHAR2(10), PRIMARY KEY (RUN_ID, PARTITION_NO))");
+        clock = new MutableClock(1_000_000L);
+    }
+
+    @Test
+    void eachPartitionIsClaimedByExactlyOneInstance() {
+        PartitionLeaseCoordinator a = coordinator("host-a");
+        PartitionLeaseCoordinator b = coordinator("host-b");
+        a.register(4);
+        b.register(4);
+
+        List<Integer> claimedByA = new ArrayList<>();
+        List<Integer> claimedByB = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PartitionLeaseCoordinator next = i % 2 == 0 ? a : b;
+            int partition = next.claim();
+            assertThat(partition).isNotNegative();
+            (next == a ? claimedByA : claimedByB).add(partition);
+        }
+
+        Set<Integer> all = new HashSet<>(claimedByA);
+        all.addAll(claimedByB);
+        assertThat(all).containsExactlyInAnyOrder(0, 1, 2, 3);
+        assertThat(claimedByA).doesNotContainAnyElementsOf(claimedByB);
+        assertThat(a.claim()).isEqualTo(-1);
+        assertThat(b.claim()).isEqualTo(-1);
+        assertThat(a.remaining()).isEqualTo(4);
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedAndOnlyTheNewOwnerCompletes() {
+        PartitionLeaseCoordinator a = coordinator("host-a");
+        PartitionLeaseCoordinator b = coordinator("host-b");
+        a.register(1);
+        int partition = a.claim();
+        assertThat(partition).isZero();
+
+        clock.advance(LEASE_MS - 1);
+        assertThat(b.claim()).isEqualTo(-1);
+        assertThat(a.renew(partition)).isTrue();
+
+        // a deja de renovar (instancia caída): al vencer el lease b la retoma
+        clock.advance(LEASE_MS + 1);
+        assertThat(b.claim()).isEqualTo(partition);
+        assertThat(a.renew(partition)).isFalse();
+        assertThat(a.complete(partition)).isFalse();
+
+        assertThat(b.complete(partition)).isTrue();
+        assertThat(b.remaining()).isZero();
+        assertThat(a.claim()).isEqualTo(-1);
+    }
+
+    @Test
+    void onlyTheOwnerCanCompleteOrReleaseItsLease() {
+        PartitionLeaseCoordinator a = coordinator("host-a");
+        PartitionLeaseCoordinator b = coordinator("host-b");
+        a.register(1);
+        int partition = a.claim();
+
+        assertThat(b.complete(partition)).isFalse();
+        assertThat(b.renew(partition)).isFalse();
+        b.release(partition);
+        assertThat(b.claim()).isEqualTo(-1);
+
+        // release del dueño vence el lease de inmediato
+        a.release(partition);
+        assertThat(b.claim()).isEqualTo(partition);
+        assertThat(b.complete(partition)).isTrue();
+        assertThat(a.remaining()).isZero();
+    }
+
+    @Test
+    void registerRejectsADifferentPartitionCount() {
+        coordinator("host-a").register(4);
+        assertThatThrownBy(() -> coordinator("host-b").register(2)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private PartitionLeaseCoordinator coordinator(String owner) {
+        return new PartitionLeaseCoordinator(jdbc, TABLE, RUN_ID, owner, LEASE_MS, clock);
+    }
+
+    // Reloj compartido por las instancias que el test adelanta a mano
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        private void advance(long ms) {
+            millis += ms;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}